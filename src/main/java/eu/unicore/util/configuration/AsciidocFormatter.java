@@ -134,7 +134,7 @@ public class AsciidocFormatter implements HelpFormatter
 		}
 	}
 	
-	private static Field getField(Class<?> clazz, String defaultName, 
+	static Field getField(Class<?> clazz, String defaultName, 
 			Class<? extends Annotation> annotation, Class<?> desiredType) throws Exception
 	{
 		Field field = null;
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Difference between two configurations: the keys of properties which were added, removed or modified.
+ * Only the properties with a given prefix are compared and the keys are stored without the prefix.
+ * Computed in a single pass over both configurations.
+ * <p>
+ * Immutable.
+ */
+public class ChangeSet
+{
+	private static final ChangeSet EMPTY = new ChangeSet(new TreeSet<>(), new TreeSet<>(), new TreeSet<>());
+	private final NavigableSet<String> added;
+	private final NavigableSet<String> removed;
+	private final NavigableSet<String> modified;
+	private final NavigableSet<String> changed;
+
+	private ChangeSet(NavigableSet<String> added, NavigableSet<String> removed, NavigableSet<String> modified)
+	{
+		this.added = Collections.unmodifiableNavigableSet(added);
+		this.removed = Collections.unmodifiableNavigableSet(removed);
+		this.modified = Collections.unmodifiableNavigableSet(modified);
+		NavigableSet<String> all = new TreeSet<>(added);
+		all.addAll(removed);
+		all.addAll(modified);
+		this.changed = Collections.unmodifiableNavigableSet(all);
+	}
+
+	/**
+	 * @return the difference between the original and updated properties with the given prefix
+	 */
+	public static ChangeSet of(String prefix, Properties original, Properties updated)
+	{
+		NavigableSet<String> added = new TreeSet<>();
+		NavigableSet<String> removed = new TreeSet<>();
+		NavigableSet<String> modified = new TreeSet<>();
+		for (Map.Entry<Object, Object> entry: original.entrySet())
+		{
+			String key = (String) entry.getKey();
+			if (!key.startsWith(prefix))
+				continue;
+			Object updatedValue = updated.get(key);
+			if (updatedValue == null)
+				removed.add(key.substring(prefix.length()));
+			else if (!updatedValue.equals(entry.getValue()))
+				modified.add(key.substring(prefix.length()));
+		}
+		for (Object key: updated.keySet())
+		{
+			String name = (String) key;
+			if (name.startsWith(prefix) && !original.containsKey(name))
+				added.add(name.substring(prefix.length()));
+		}
+		if (added.isEmpty() && removed.isEmpty() && modified.isEmpty())
+			return EMPTY;
+		return new ChangeSet(added, removed, modified);
+	}
+
+	/**
+	 * @return the change of a single property, given its original and updated values (null if not set)
+	 */
+	static ChangeSet ofProperty(String key, String originalValue, String updatedValue)
+	{
+		if (originalValue == null && updatedValue == null || 
+				originalValue != null && originalValue.equals(updatedValue))
+			return EMPTY;
+		NavigableSet<String> added = new TreeSet<>();
+		NavigableSet<String> removed = new TreeSet<>();
+		NavigableSet<String> modified = new TreeSet<>();
+		if (originalValue == null)
+			added.add(key);
+		else if (updatedValue == null)
+			removed.add(key);
+		else
+			modified.add(key);
+		return new ChangeSet(added, removed, modified);
+	}
+
+	static ChangeSet empty()
+	{
+		return EMPTY;
+	}
+
+	public boolean isEmpty()
+	{
+		return changed.isEmpty();
+	}
+
+	/**
+	 * @return keys (without prefix) of properties present only in the updated configuration
+	 */
+	public NavigableSet<String> getAdded()
+	{
+		return added;
+	}
+
+	/**
+	 * @return keys (without prefix) of properties present only in the original configuration
+	 */
+	public NavigableSet<String> getRemoved()
+	{
+		return removed;
+	}
+
+	/**
+	 * @return keys (without prefix) of properties with different values in both configurations
+	 */
+	public NavigableSet<String> getModified()
+	{
+		return modified;
+	}
+
+	/**
+	 * @return keys (without prefix) of all added, removed and modified properties, sorted
+	 */
+	public NavigableSet<String> getChanged()
+	{
+		return changed;
+	}
+
+	/**
+	 * @return whether the given property was changed
+	 */
+	public boolean isChanged(String key)
+	{
+		return changed.contains(key);
+	}
+
+	/**
+	 * @return whether any property which key starts with the given one was changed
+	 */
+	public boolean isGroupChanged(String keyPrefix)
+	{
+		String first = changed.ceiling(keyPrefix);
+		return first != null && first.startsWith(keyPrefix);
+	}
+
+	/**
+	 * @param keys keys to be checked
+	 * @param isGroup tells which of the keys denote groups of properties (i.e. can have subkeys),
+	 * those are changed if any property of the group was changed.
+	 * @return the keys which were changed
+	 */
+	public Set<String> filter(Set<String> keys, Predicate<String> isGroup)
+	{
+		Set<String> ret = new TreeSet<>();
+		if (isEmpty())
+			return ret;
+		for (String key: keys)
+			if (isGroup.test(key) ? isGroupChanged(key) : isChanged(key))
+				ret.add(key);
+		return ret;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "added: " + added + ", removed: " + removed + ", modified: " + modified;
+	}
+}
@@ -36,7 +36,15 @@ public class ConfigIncludesProcessor
 	
 	public Properties processIncludes(Properties src)
 	{
-		Properties withVars = VariablesProcessor.process(src, log);
+		return processIncludesOnly(VariablesProcessor.process(src, log));
+	}
+
+	/**
+	 * As {@link #processIncludes(Properties)} but assumes that variables were already resolved 
+	 * in the argument. The argument is modified and returned.
+	 */
+	public Properties processIncludesOnly(Properties withVars)
+	{
 		Map<String, String> includes = new HashMap<>();
 		withVars.forEach((keyO, value) -> {
 			String key = (String) keyO;
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import eu.unicore.util.configuration.ValidationResult.Rule;
+import eu.unicore.util.configuration.ValidationResult.Violation;
+
+/**
+ * Validates many configuration files at once, using a bounded pool of threads. Each file is validated
+ * with its own prefix and metadata, in the same way as by
+ * {@link PropertiesHelper#validate(String, Properties, Map, Logger)}. The index of metadata is built once
+ * and shared by all files using the same metadata map.
+ * <p>
+ * The outcome is a list of {@link FileReport}s, one per file, in the order of adding the files.
+ * It can be written as a CSV report with {@link #writeReport(List, Writer)}.
+ * <p>
+ * Can be used from the command line, see {@link #main(String...)}.
+ */
+public class ConfigurationLinter
+{
+	private static final String USAGE = "Args: <report file> <number of threads> "
+			+ "<triple as one string: class|file or directory|prefix where prefix is optional>...";
+	private final Logger log;
+	private final int threads;
+	private final List<Target> targets = new ArrayList<>();
+
+	/**
+	 * @param log used when validating the files
+	 * @param threads maximal number of files validated at the same time
+	 */
+	public ConfigurationLinter(Logger log, int threads)
+	{
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive");
+		this.log = log;
+		this.threads = threads;
+	}
+
+	/**
+	 * Adds a file to be validated with the given prefix and metadata.
+	 */
+	public ConfigurationLinter addFile(File file, String prefix, Map<String, PropertyMD> meta)
+	{
+		targets.add(new Target(file, prefix, meta));
+		return this;
+	}
+
+	/**
+	 * Adds a file or files to be validated with the metadata of the given class. The metadata and
+	 * the default prefix
+	 * (used if prefix is null) are found in the same way as by {@link AsciidocFormatter#processFile}.
+	 * If the file is a directory, all *.properties files in it are added.
+	 */
+	public ConfigurationLinter addFiles(File file, String clazzName, String prefix) throws Exception
+	{
+		ClassLoader loader = ConfigurationLinter.class.getClassLoader();
+		Class<?> clazz = loader.loadClass(clazzName);
+		Field fMeta = AsciidocFormatter.getField(clazz, "META", DocumentationReferenceMeta.class, Map.class);
+		if (prefix == null)
+		{
+			Field fPrefix = AsciidocFormatter.getField(clazz, "DEFAULT_PREFIX",
+					DocumentationReferencePrefix.class, String.class);
+			prefix = (String) fPrefix.get(null);
+		}
+		@SuppressWarnings("unchecked")
+		Map<String, PropertyMD> meta = (Map<String, PropertyMD>) fMeta.get(null);
+
+		if (file.isDirectory())
+		{
+			File[] files = file.listFiles((dir, name) -> name.endsWith(".properties"));
+			if (files == null)
+				throw new IOException("Can not list files in " + file);
+			Arrays.sort(files);
+			for (File f: files)
+				addFile(f, prefix, meta);
+		} else
+		{
+			addFile(file, prefix, meta);
+		}
+		return this;
+	}
+
+	/**
+	 * Validates all added files.
+	 * @return reports of all files, in the order of adding the files
+	 */
+	public List<FileReport> lint() throws InterruptedException
+	{
+		List<FileReport> ret = new ArrayList<>(targets.size());
+		if (targets.isEmpty())
+			return ret;
+		List<Callable<FileReport>> tasks = new ArrayList<>(targets.size());
+		for (Target target: targets)
+			tasks.add(() -> lint(target));
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, targets.size()));
+		try
+		{
+			for (Future<FileReport> report: executor.invokeAll(tasks))
+				ret.add(report.get());
+		} catch (ExecutionException e)
+		{
+			throw new RuntimeException("BUG: " + e.getCause(), e.getCause());
+		} finally
+		{
+			executor.shutdownNow();
+		}
+		return ret;
+	}
+
+	private FileReport lint(Target target)
+	{
+		long start = System.nanoTime();
+		ValidationResult result;
+		try
+		{
+			Properties properties = load(target.file);
+			result = PropertiesHelper.validate(target.prefix, properties, target.meta, log);
+		} catch (IOException e)
+		{
+			result = new ValidationResult();
+			result.add(new Violation(null, Rule.PREPROCESSING, null, null,
+					"Can not load properties file " + target.file + ": " + e.getMessage()));
+		} catch (Throwable e)
+		{
+			//reported for this file only, the other files are still validated
+			log.warn("Validation of " + target.file + " failed", e);
+			result = new ValidationResult();
+			result.add(new Violation(null, Rule.INTERNAL, null, null,
+					"Validation of " + target.file + " failed: " + e));
+		}
+		return new FileReport(target.file, result, Duration.ofNanos(System.nanoTime() - start));
+	}
+
+	private static Properties load(File file) throws IOException
+	{
+		Properties properties = new Properties();
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+		{
+			properties.load(reader);
+		} catch (IllegalArgumentException e)
+		{
+			//malformed escape sequence
+			throw new IOException(e.getMessage(), e);
+		}
+		return properties;
+	}
+
+	/**
+	 * Writes the reports in CSV format, with a header line and columns:
+	 * file, valid, time_ms, key, rule, message. There is one line for each violation;
+	 * for valid files a single line with the last three columns empty is written.
+	 */
+	public static void writeReport(List<FileReport> reports, Writer writer) throws IOException
+	{
+		writer.write("file,valid,time_ms,key,rule,message\n");
+		for (FileReport report: reports)
+		{
+			String common = escape(report.getFile().getPath()) + "," + report.isValid() + "," +
+					report.getDuration().toMillis() + ",";
+			if (report.isValid())
+				writer.write(common + ",,\n");
+			for (Violation violation: report.getResult().getViolations())
+				writer.write(common + escape(violation.getKey()) + "," + violation.getRule() + "," +
+						escape(violation.getMessage()) + "\n");
+		}
+		writer.flush();
+	}
+
+	private static String escape(String value)
+	{
+		if (value == null)
+			return "";
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 &&
+				value.indexOf('\r') < 0)
+			return value;
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	/**
+	 * Validates the given files and writes the CSV report.
+	 * @param args report file, number of threads and then any number of triples:
+	 * META class|file or directory|prefix, where prefix is optional.
+	 * @throws ConfigurationException if any of the files is invalid, after the report was written
+	 */
+	public static void main(String... args) throws Exception
+	{
+		if (args.length < 3)
+			throw new IllegalArgumentException(USAGE);
+		ConfigurationLinter linter = new ConfigurationLinter(LogManager.getLogger(ConfigurationLinter.class),
+				Integer.parseInt(args[1]));
+		for (int i=2; i<args.length; i++)
+		{
+			String[] lintArgs = args[i].split("\\|");
+			if (lintArgs.length < 2 || lintArgs.length > 3)
+				throw new IllegalArgumentException(USAGE);
+			String prefix = lintArgs.length == 3 ? lintArgs[2] : null;
+			linter.addFiles(new File(lintArgs[1]), lintArgs[0], prefix);
+		}
+		List<FileReport> reports = linter.lint();
+		try (Writer writer = new BufferedWriter(Files.newBufferedWriter(new File(args[0]).toPath(),
+				StandardCharsets.UTF_8)))
+		{
+			writeReport(reports, writer);
+		}
+		long invalid = reports.stream().filter(r -> !r.isValid()).count();
+		System.out.println("Validated " + reports.size() + " files, invalid: " + invalid +
+				", report written to " + args[0]);
+		if (invalid > 0)
+			throw new ConfigurationException(invalid + " of " + reports.size() +
+					" configuration files are invalid, see " + args[0]);
+	}
+
+	/**
+	 * Outcome of validation of a single file.
+	 */
+	public static class FileReport
+	{
+		private final File file;
+		private final ValidationResult result;
+		private final Duration duration;
+
+		FileReport(File file, ValidationResult result, Duration duration)
+		{
+			this.file = file;
+			this.result = result;
+			this.duration = duration;
+		}
+
+		public File getFile()
+		{
+			return file;
+		}
+
+		public boolean isValid()
+		{
+			return result.isValid();
+		}
+
+		public ValidationResult getResult()
+		{
+			return result;
+		}
+
+		/**
+		 * @return time of loading and validating the file
+		 */
+		public Duration getDuration()
+		{
+			return duration;
+		}
+	}
+
+	private static class Target
+	{
+		private final File file;
+		private final String prefix;
+		private final Map<String, PropertyMD> meta;
+
+		Target(File file, String prefix, Map<String, PropertyMD> meta)
+		{
+			this.file = file;
+			this.prefix = prefix;
+			this.meta = meta;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Case insensitive mapping of strings to enum constants, computed once per enum class.
+ * Values which exactly match a constant name are resolved with a hash lookup, other are
+ * compared ignoring case, in the same way as {@link String#equalsIgnoreCase(String)} does.
+ */
+class EnumLookup
+{
+	private static final ClassValue<EnumLookup> LOOKUPS = new ClassValue<EnumLookup>()
+	{
+		@Override
+		protected EnumLookup computeValue(Class<?> type)
+		{
+			return new EnumLookup(type);
+		}
+	};
+
+	private final Map<String, Object> exact = new HashMap<>();
+	private final Map<String, Object> ignoringCase = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	private final String allowed;
+
+	private EnumLookup(Class<?> type)
+	{
+		StringBuilder allowedBuilder = new StringBuilder();
+		for (Object constant: type.getEnumConstants())
+		{
+			String name = ((Enum<?>) constant).name();
+			exact.putIfAbsent(name, constant);
+			ignoringCase.putIfAbsent(name, constant);
+			allowedBuilder.append(name).append(" ");
+		}
+		allowed = allowedBuilder.toString();
+	}
+
+	static EnumLookup of(Class<?> enumType)
+	{
+		return LOOKUPS.get(enumType);
+	}
+
+	/**
+	 * @return the enum constant with the given name, compared ignoring case, or null if there is no such.
+	 */
+	<T extends Enum<T>> T find(String value, Class<T> type)
+	{
+		Object ret = exact.get(value);
+		if (ret == null)
+			ret = ignoringCase.get(value);
+		return type.cast(ret);
+	}
+
+	/**
+	 * @return names of all enum constants, separated (and terminated) with space
+	 */
+	String getAllowedValues()
+	{
+		return allowed;
+	}
+}
@@ -44,9 +44,19 @@ public class FilePropertiesHelper extends PropertiesHelper implements Runnable
 		lastAccess = file.lastModified();
 	}
 
+	public FilePropertiesHelper(String prefix, File file,
+			Map<String, PropertyMD> meta, Logger log, PropertiesHelperOptions options)
+			throws ConfigurationException, IOException
+	{
+		super(prefix, load(file), meta, log, options);
+		this.file = file;
+		lastAccess = file.lastModified();
+	}
+
 	public void reload() throws IOException, ConfigurationException
 	{
-		setProperties(load(file));
+		long start = System.nanoTime();
+		setProperties(load(file), start);
 	}
 	
 	public File getFile()
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Filesystem attributes of a path used as a property value, read at once with NIO.
+ * Remembers when it was read, so can be cached for a limited time.
+ */
+class FileStatus
+{
+	private final String invalidPathReason;
+	private final boolean exists;
+	private final boolean readable;
+	private final boolean directory;
+	private final boolean regularFile;
+	private final long readAt;
+
+	private FileStatus(String invalidPathReason, boolean exists, boolean readable, boolean directory, 
+			boolean regularFile)
+	{
+		this.invalidPathReason = invalidPathReason;
+		this.exists = exists;
+		this.readable = readable;
+		this.directory = directory;
+		this.regularFile = regularFile;
+		this.readAt = System.nanoTime();
+	}
+
+	static FileStatus read(String path)
+	{
+		Path p;
+		try
+		{
+			p = Paths.get(path);
+		} catch (InvalidPathException e)
+		{
+			return new FileStatus(e.getMessage(), false, false, false, false);
+		}
+		try
+		{
+			BasicFileAttributes attributes = Files.readAttributes(p, BasicFileAttributes.class);
+			return new FileStatus(null, true, Files.isReadable(p), attributes.isDirectory(),
+					attributes.isRegularFile());
+		} catch (IOException e)
+		{
+			return new FileStatus(null, false, false, false, false);
+		}
+	}
+
+	/**
+	 * @return why the value is not a filesystem path or null if it is a valid one
+	 */
+	String getInvalidPathReason()
+	{
+		return invalidPathReason;
+	}
+
+	boolean isOlderThan(long ttlMillis)
+	{
+		return System.nanoTime() - readAt > ttlMillis * 1000000L;
+	}
+
+	boolean exists()
+	{
+		return exists;
+	}
+
+	boolean isReadable()
+	{
+		return readable;
+	}
+
+	boolean isDirectory()
+	{
+		return directory;
+	}
+
+	boolean isRegularFile()
+	{
+		return regularFile;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Supplier;
+
+/**
+ * Creates instances of a class configured with a CLASS property, using its public no-argument
+ * constructor. The constructor is resolved once, to a method handle.
+ */
+class InstanceFactory implements Supplier<Object>
+{
+	private final Class<?> type;
+	private final MethodHandle constructor;
+
+	/**
+	 * @throws NoSuchMethodException if the class has no public no-argument constructor
+	 * @throws IllegalAccessException if the constructor is not accessible
+	 */
+	InstanceFactory(Class<?> type) throws NoSuchMethodException, IllegalAccessException
+	{
+		this.type = type;
+		this.constructor = MethodHandles.publicLookup().unreflectConstructor(type.getConstructor())
+				.asType(MethodType.methodType(Object.class));
+	}
+
+	/**
+	 * @param helper used to describe the property in the error message
+	 * @throws ConfigurationException if the class has no accessible public no-argument constructor
+	 */
+	static InstanceFactory of(Class<?> type, PropertiesHelperAPI helper, String name) 
+			throws ConfigurationException
+	{
+		try
+		{
+			return new InstanceFactory(type);
+		} catch (NoSuchMethodException | IllegalAccessException e)
+		{
+			throw new ConfigurationException("Value " + type.getName() + " is not allowed for "
+					+ helper.getKeyDescription(name) + ", must be a class with a public no-argument constructor");
+		}
+	}
+
+	Class<?> getType()
+	{
+		return type;
+	}
+
+	@Override
+	public Object get()
+	{
+		try
+		{
+			return (Object) constructor.invokeExact();
+		} catch (Error | RuntimeException e)
+		{
+			throw e;
+		} catch (Throwable e)
+		{
+			throw new ConfigurationException("Can not create an instance of " + type.getName(), e);
+		}
+	}
+}
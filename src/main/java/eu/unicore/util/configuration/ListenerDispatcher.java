@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Delivers change notifications to listeners asynchronously, using an executor.
+ * Each listener has its own queue of pending notifications, which is drained by at most one task
+ * at a time, so a listener receives notifications in the order of changes and never concurrently.
+ * A notification about a key which is already queued for the listener is merged with the queued one:
+ * the listener is notified once and its {@link PropertyChangeEvent} (if any) covers both changes.
+ */
+class ListenerDispatcher
+{
+	private final Executor executor;
+	private final Logger log;
+	private final Map<PropertyChangeListener, ListenerQueue> queues = new IdentityHashMap<>();
+	private final AtomicInteger depth = new AtomicInteger();
+
+	ListenerDispatcher(Executor executor, Logger log)
+	{
+		this.executor = executor == null ? DefaultExecutor.INSTANCE : executor;
+		this.log = log;
+	}
+
+	/**
+	 * Queues a notification of the listener.
+	 * @param key changed key or null for generic listeners
+	 * @param event describing the change, may be null
+	 */
+	void dispatch(PropertyChangeListener listener, String key, PropertyChangeEvent event)
+	{
+		ListenerQueue queue;
+		synchronized (queues)
+		{
+			queue = queues.computeIfAbsent(listener, ListenerQueue::new);
+			if (queue.pending.containsKey(key))
+			{
+				PropertyChangeEvent queued = queue.pending.get(key);
+				if (queued != null && event != null)
+					queue.pending.put(key, queued.mergedWith(event));
+				return;
+			}
+			queue.pending.put(key, event);
+			depth.incrementAndGet();
+			if (queue.scheduled)
+				return;
+			queue.scheduled = true;
+		}
+		try
+		{
+			executor.execute(queue::drain);
+		} catch (RejectedExecutionException e)
+		{
+			log.warn("Can not notify configuration listener asynchronously, notifying it directly", e);
+			queue.drain();
+		}
+	}
+
+	/**
+	 * @return number of queued notifications, which were not yet delivered
+	 */
+	int getQueueDepth()
+	{
+		return depth.get();
+	}
+
+	private class ListenerQueue
+	{
+		private final PropertyChangeListener listener;
+		private final Map<String, PropertyChangeEvent> pending = new LinkedHashMap<>();
+		private boolean scheduled;
+
+		ListenerQueue(PropertyChangeListener listener)
+		{
+			this.listener = listener;
+		}
+
+		void drain()
+		{
+			while (true)
+			{
+				Map.Entry<String, PropertyChangeEvent> next;
+				synchronized (queues)
+				{
+					Iterator<Map.Entry<String, PropertyChangeEvent>> it = pending.entrySet().iterator();
+					if (!it.hasNext())
+					{
+						scheduled = false;
+						queues.remove(listener);
+						return;
+					}
+					next = it.next();
+					it.remove();
+					depth.decrementAndGet();
+				}
+				try
+				{
+					PropertyChangeEvent.deliver(listener, next.getKey(), next.getValue());
+				} catch (RuntimeException e)
+				{
+					log.warn("Configuration change listener failed", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Virtual threads if available (Java 21+), otherwise a cached pool of daemon threads.
+	 */
+	private static class DefaultExecutor
+	{
+		private static final Executor INSTANCE = create();
+
+		private static Executor create()
+		{
+			try
+			{
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+						.invoke(null);
+			} catch (ReflectiveOperationException e)
+			{
+				AtomicInteger counter = new AtomicInteger();
+				ThreadFactory factory = r ->
+				{
+					Thread thread = new Thread(r, "configuration-listener-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				};
+				return Executors.newCachedThreadPool(factory);
+			}
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Registered {@link PropertyChangeListener}s of a helper. Listeners interested in particular properties
+ * are indexed in a prefix trie of their keys, so the listeners to be notified about a change of a property
+ * are found in a time proportional to the property key length.
+ * <p>
+ * The registered listeners are kept in an immutable state, which is replaced (copy on write)
+ * when listeners are added or removed. Therefore registration does not block and notification
+ * works on a consistent set of listeners without holding any lock.
+ */
+class ListenerRegistry
+{
+	private static final PropertyChangeListener[] NONE = new PropertyChangeListener[0];
+	private final Predicate<String> isGroup;
+	private final AtomicReference<Listeners> current;
+
+	/**
+	 * @param isGroup tells which keys denote groups of properties (i.e. can have subkeys): listeners
+	 * of such keys are notified about changes of all properties with the key as prefix.
+	 */
+	ListenerRegistry(Predicate<String> isGroup)
+	{
+		this.isGroup = isGroup;
+		this.current = new AtomicReference<>(new Listeners(NONE, Collections.emptyMap(), isGroup));
+	}
+
+	void add(PropertyChangeListener listener)
+	{
+		String[] interestingProps = listener.getInterestingProperties();
+		update(state ->
+		{
+			if (interestingProps == null)
+				return new Listeners(append(state.generic, listener), state.focused, isGroup);
+			Map<String, PropertyChangeListener[]> focused = new LinkedHashMap<>(state.focused);
+			for (String prop: interestingProps)
+				focused.put(prop, append(focused.getOrDefault(prop, NONE), listener));
+			return new Listeners(state.generic, focused, isGroup);
+		});
+	}
+
+	void remove(PropertyChangeListener listener)
+	{
+		update(state ->
+		{
+			Map<String, PropertyChangeListener[]> focused = new LinkedHashMap<>();
+			for (Map.Entry<String, PropertyChangeListener[]> entry: state.focused.entrySet())
+			{
+				PropertyChangeListener[] remaining = without(entry.getValue(), listener);
+				if (remaining.length > 0)
+					focused.put(entry.getKey(), remaining);
+			}
+			return new Listeners(without(state.generic, listener), focused, isGroup);
+		});
+	}
+
+	/**
+	 * Registers all listeners of the other registry.
+	 */
+	void addAll(ListenerRegistry other)
+	{
+		Listeners added = other.current.get();
+		update(state ->
+		{
+			PropertyChangeListener[] generic = Arrays.copyOf(state.generic,
+					state.generic.length + added.generic.length);
+			System.arraycopy(added.generic, 0, generic, state.generic.length, added.generic.length);
+			Map<String, PropertyChangeListener[]> focused = new LinkedHashMap<>(state.focused);
+			for (Map.Entry<String, PropertyChangeListener[]> entry: added.focused.entrySet())
+				for (PropertyChangeListener listener: entry.getValue())
+					focused.put(entry.getKey(), append(focused.getOrDefault(entry.getKey(), NONE), listener));
+			return new Listeners(generic, focused, isGroup);
+		});
+	}
+
+	private void update(UnaryOperator<Listeners> change)
+	{
+		Listeners state;
+		do
+		{
+			state = current.get();
+		} while (!current.compareAndSet(state, change.apply(state)));
+	}
+
+	/**
+	 * @return the listeners interested in all changes. Must not be modified.
+	 */
+	PropertyChangeListener[] getGenericListeners()
+	{
+		return current.get().generic;
+	}
+
+	/**
+	 * @return the listeners interested in particular keys, by key. Must not be modified.
+	 */
+	Map<String, PropertyChangeListener[]> getFocusedListeners()
+	{
+		return current.get().focused;
+	}
+
+	/**
+	 * @return whether any of the listeners is a {@link PropertyChangeEventListener}
+	 */
+	boolean hasEventListeners()
+	{
+		return current.get().withEvents;
+	}
+
+	/**
+	 * @return the listeners interested in the given key. Must not be modified.
+	 */
+	PropertyChangeListener[] getListeners(String key)
+	{
+		return current.get().focused.getOrDefault(key, NONE);
+	}
+
+	/**
+	 * @return the keys of the focused listeners which are affected by the changes: equal to a changed
+	 * property key or being a group containing a changed property.
+	 */
+	Set<String> getAffectedKeys(ChangeSet changes)
+	{
+		Listeners state = current.get();
+		Set<String> ret = new LinkedHashSet<>();
+		if (state.focused.isEmpty())
+			return ret;
+		for (String changed: changes.getChanged())
+			state.root.forMatching(changed, ret::add);
+		return ret;
+	}
+
+	/**
+	 * Invokes the action for each key of focused listeners which is equal to the given property key
+	 * or is a group containing it. Keys are visited from the shortest.
+	 */
+	void forMatchingKeys(String property, Consumer<String> action)
+	{
+		current.get().root.forMatching(property, action);
+	}
+
+	private static PropertyChangeListener[] append(PropertyChangeListener[] listeners,
+			PropertyChangeListener listener)
+	{
+		PropertyChangeListener[] ret = Arrays.copyOf(listeners, listeners.length + 1);
+		ret[listeners.length] = listener;
+		return ret;
+	}
+
+	private static PropertyChangeListener[] without(PropertyChangeListener[] listeners,
+			PropertyChangeListener listener)
+	{
+		return Arrays.stream(listeners)
+				.filter(l -> l != listener)
+				.toArray(PropertyChangeListener[]::new);
+	}
+
+	/**
+	 * Immutable set of registered listeners.
+	 */
+	private static class Listeners
+	{
+		private final PropertyChangeListener[] generic;
+		private final Map<String, PropertyChangeListener[]> focused;
+		private final TrieNode root = new TrieNode();
+		private final boolean withEvents;
+
+		Listeners(PropertyChangeListener[] generic, Map<String, PropertyChangeListener[]> focused,
+				Predicate<String> isGroup)
+		{
+			this.generic = generic;
+			this.focused = focused;
+			for (String key: focused.keySet())
+				root.add(key, isGroup.test(key));
+			this.withEvents = hasEventListener(generic) || 
+					focused.values().stream().anyMatch(Listeners::hasEventListener);
+		}
+
+		private static boolean hasEventListener(PropertyChangeListener[] listeners)
+		{
+			return Arrays.stream(listeners).anyMatch(l -> l instanceof PropertyChangeEventListener);
+		}
+	}
+
+	private static class TrieNode
+	{
+		private final Map<Character, TrieNode> children = new HashMap<>();
+		private String key;
+		private boolean group;
+
+		void add(String key, boolean group)
+		{
+			TrieNode node = this;
+			for (int i=0; i<key.length(); i++)
+				node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+			node.key = key;
+			node.group = group;
+		}
+
+		/**
+		 * Invokes the action for each stored key which is equal to the value or is a group key
+		 * being a prefix of the value.
+		 */
+		void forMatching(String value, Consumer<String> action)
+		{
+			TrieNode node = this;
+			if (node.key != null && (node.group || value.isEmpty()))
+				action.accept(node.key);
+			for (int i=0; i<value.length(); i++)
+			{
+				node = node.children.get(value.charAt(i));
+				if (node == null)
+					return;
+				if (node.key != null && (node.group || i == value.length()-1))
+					action.accept(node.key);
+			}
+		}
+	}
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.unicore.util.configuration.PropertyMD.Type;
+
+/**
+ * Index of properties metadata, allowing for resolving the metadata key of an arbitrary property key
+ * in a time proportional to the key length. Two prefix tries are used: one with structured list keys
+ * and one with keys which can have subkeys (lists and properties with subkeys allowed).
+ * Resolved keys, including negative results, are cached.
+ * <p>
+ * The mandatory members of each structured list and the deprecated keys are precomputed.
+ * <p>
+ * Additionally the index groups the regular (not structured list members) properties by type 
+ * and assigns columns to the ones of primitive types, so their values can be stored in 
+ * the {@link PrimitiveValues} of a snapshot.
+ * <p>
+ * The index is immutable and thread safe. It is built once per metadata map and shared by all helpers
+ * using the same (identical) map, see {@link #of(Map)}. Therefore the metadata should not be modified 
+ * after the first helper using it was created. Modifications of the map are detected (at the cost 
+ * of a linear check), and cause rebuilding of the index, modifications of the {@link PropertyMD}s are not.
+ * The index keeps its own copy of the map, so it does not prevent the source map 
+ * from being garbage collected.
+ */
+class MetadataIndex
+{
+	private static final String NOT_FOUND = new String("");
+	private static final int MAX_CACHED = 100000;
+	private static final Map<IdentityReference, MetadataIndex> INDEXES = new ConcurrentHashMap<>();
+	private static final ReferenceQueue<Map<String, PropertyMD>> COLLECTED = new ReferenceQueue<>();
+
+	private final Map<String, PropertyMD> metadata;
+	private final TrieNode structuredLists = new TrieNode();
+	private final Set<String> structuredListKeys = new LinkedHashSet<>();
+	private final TrieNode withSubkeys = new TrieNode();
+	private final Map<String, String> resolved = new ConcurrentHashMap<>();
+	private final Map<Type, Map<String, Integer>> columns = new EnumMap<>(Type.class);
+	private final Map<Type, List<String>> regularKeys = new EnumMap<>(Type.class);
+	private final Map<String, Set<String>> mandatoryMembers = new HashMap<>();
+	private final List<Map.Entry<String, PropertyMD>> entries;
+	private final List<String> deprecatedKeys = new ArrayList<>();
+
+	/**
+	 * @return the index of the given metadata map, built only if there is no up to date index 
+	 * of the same map.
+	 */
+	static MetadataIndex of(Map<String, PropertyMD> metadata)
+	{
+		Reference<?> collected;
+		while ((collected = COLLECTED.poll()) != null)
+			INDEXES.remove(collected);
+		MetadataIndex ret = INDEXES.get(new IdentityReference(metadata, null));
+		if (ret == null || !ret.isUpToDate(metadata))
+		{
+			ret = new MetadataIndex(metadata);
+			INDEXES.put(new IdentityReference(metadata, COLLECTED), ret);
+		}
+		return ret;
+	}
+
+	MetadataIndex(Map<String, PropertyMD> metadata)
+	{
+		this.metadata = new LinkedHashMap<>(metadata);
+		this.entries = Collections.unmodifiableList(new ArrayList<>(this.metadata.entrySet()));
+		for (Type type: Type.values())
+			regularKeys.put(type, new ArrayList<>());
+		for (Type type: PrimitiveValues.TYPES)
+			columns.put(type, new HashMap<>());
+		for (Map.Entry<String, PropertyMD> entry: entries)
+		{
+			PropertyMD meta = entry.getValue();
+			if (!meta.isStructuredListEntry())
+			{
+				List<String> keys = regularKeys.get(meta.getType());
+				if (columns.containsKey(meta.getType()))
+					columns.get(meta.getType()).put(entry.getKey(), keys.size());
+				keys.add(entry.getKey());
+			}
+			if (meta.getType() == Type.STRUCTURED_LIST && !meta.isStructuredListEntry())
+			{
+				structuredLists.add(entry.getKey());
+				structuredListKeys.add(entry.getKey());
+			}
+			if (meta.getType() == Type.LIST || meta.canHaveSubkeys())
+				withSubkeys.add(entry.getKey());
+			if (meta.isStructuredListEntry() && meta.isMandatory())
+				mandatoryMembers.computeIfAbsent(meta.getStructuredListEntryId(), k -> new HashSet<>())
+					.add(entry.getKey());
+			if (meta.isDeprecated())
+				deprecatedKeys.add(entry.getKey());
+		}
+	}
+
+	private boolean isUpToDate(Map<String, PropertyMD> source)
+	{
+		if (source.size() != metadata.size())
+			return false;
+		for (Map.Entry<String, PropertyMD> entry: source.entrySet())
+			if (metadata.get(entry.getKey()) != entry.getValue())
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return all metadata entries, in the iteration order of the source map
+	 */
+	List<Map.Entry<String, PropertyMD>> getEntries()
+	{
+		return entries;
+	}
+
+	/**
+	 * @return keys of the structured lists, in the iteration order of the source map. Must not be modified.
+	 */
+	Set<String> getStructuredListKeys()
+	{
+		return structuredListKeys;
+	}
+
+	/**
+	 * @return metadata keys of the mandatory members of the given structured list. Must not be modified.
+	 */
+	Set<String> getMandatoryMembers(String structuredListKey)
+	{
+		return mandatoryMembers.getOrDefault(structuredListKey, Collections.emptySet());
+	}
+
+	/**
+	 * @return keys of the deprecated properties, in the iteration order of the source map. Must not be modified.
+	 */
+	List<String> getDeprecatedKeys()
+	{
+		return deprecatedKeys;
+	}
+
+	/**
+	 * For regular entries returns the argument. For entries where propertyKey is something from a list
+	 * or entry with subkeys, the real entry key is returned. Similarly for the structured list - the structured
+	 * list entry is returned. If there is no metadata for the key null is returned.
+	 */
+	String getMetadataKey(String propertyKey)
+	{
+		if (metadata.containsKey(propertyKey))
+			return propertyKey;
+		String cached = resolved.get(propertyKey);
+		if (cached != null)
+			return cached == NOT_FOUND ? null : cached;
+
+		String ret = resolve(propertyKey);
+		if (resolved.size() < MAX_CACHED)
+			resolved.put(propertyKey, ret == null ? NOT_FOUND : ret);
+		return ret;
+	}
+
+	/**
+	 * Checks if a property key (without prefix) is known. Besides the keys resolved by 
+	 * {@link #getMetadataKey(String)}, a key is known if its closest dot separated parent namespace 
+	 * with metadata is a list or a property with subkeys allowed, or if any of its parent namespaces 
+	 * is a structured list with subkeys allowed. The results are not cached, as each key 
+	 * is typically checked once per configuration load.
+	 */
+	boolean isKnown(String key)
+	{
+		if (findMetadata(key) != null)
+			return true;
+		for (int dot = key.lastIndexOf('.'); dot >= 0; dot = key.lastIndexOf('.', dot-1))
+		{
+			PropertyMD parent = findMetadata(key.substring(0, dot));
+			if (parent != null)
+				return parent.canHaveSubkeys() || parent.getType() == Type.LIST;
+			PropertyMD structured = findMetadata(key.substring(0, dot+1));
+			if (structured != null && structured.getType() == Type.STRUCTURED_LIST && 
+					structured.canHaveSubkeys())
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * As {@link #getMetadataKey(String)}, but the result is not cached. Used for keys which are resolved 
+	 * once per configuration load, as members of structured list elements, so they don't fill the cache.
+	 */
+	String findMetadataKey(String propertyKey)
+	{
+		if (metadata.containsKey(propertyKey))
+			return propertyKey;
+		String cached = resolved.get(propertyKey);
+		if (cached != null)
+			return cached == NOT_FOUND ? null : cached;
+		return resolve(propertyKey);
+	}
+
+	private PropertyMD findMetadata(String key)
+	{
+		String realKey = findMetadataKey(key);
+		return realKey == null ? null : metadata.get(realKey);
+	}
+
+	/**
+	 * @return column of the given property in the {@link PrimitiveValues} or -1 if the property 
+	 * has no column assigned for the given type.
+	 */
+	int getColumn(Type type, String key)
+	{
+		Integer column = columns.get(type).get(key);
+		return column == null ? -1 : column;
+	}
+
+	/**
+	 * @return keys of the regular properties of the given type. For primitive types the keys are 
+	 * ordered by their columns.
+	 */
+	List<String> getKeys(Type type)
+	{
+		return regularKeys.get(type);
+	}
+
+	/**
+	 * @return the key of the structured list which is the longest prefix of the given property key, 
+	 * or null if the property is not under any structured list.
+	 */
+	String getStructuredListOf(String propertyKey)
+	{
+		return structuredLists.longestPrefixOf(propertyKey);
+	}
+
+	private String resolve(String propertyKey)
+	{
+		String realKey = propertyKey;
+		String structuredPrefix = structuredLists.longestPrefixOf(propertyKey);
+		if (structuredPrefix != null)
+		{
+			realKey = propertyKey.substring(structuredPrefix.length());
+			int dot = realKey.indexOf('.');
+			realKey = realKey.substring(dot+1);
+			if (metadata.containsKey(realKey))
+				return realKey;
+			//maybe this is a list or something with subkeys, in the structured list
+		}
+		return withSubkeys.longestPrefixOf(realKey);
+	}
+
+	/**
+	 * Weak reference to a metadata map, compared by identity of the referenced map.
+	 */
+	private static class IdentityReference extends WeakReference<Map<String, PropertyMD>>
+	{
+		private final int hash;
+
+		IdentityReference(Map<String, PropertyMD> referent, ReferenceQueue<Map<String, PropertyMD>> queue)
+		{
+			super(referent, queue);
+			this.hash = System.identityHashCode(referent);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj)
+				return true;
+			if (!(obj instanceof IdentityReference))
+				return false;
+			Object referent = get();
+			return referent != null && referent == ((IdentityReference) obj).get();
+		}
+	}
+
+	private static class TrieNode
+	{
+		private final Map<Character, TrieNode> children = new HashMap<>();
+		private String key;
+
+		void add(String key)
+		{
+			TrieNode node = this;
+			for (int i=0; i<key.length(); i++)
+				node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode());
+			node.key = key;
+		}
+
+		/**
+		 * @return the longest key stored in the trie which is a prefix of the argument or null
+		 */
+		String longestPrefixOf(String value)
+		{
+			String ret = key;
+			TrieNode node = this;
+			for (int i=0; i<value.length(); i++)
+			{
+				node = node.children.get(value.charAt(i));
+				if (node == null)
+					break;
+				if (node.key != null)
+					ret = node.key;
+			}
+			return ret;
+		}
+	}
+}
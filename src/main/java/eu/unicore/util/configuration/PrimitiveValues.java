@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import eu.unicore.util.configuration.PropertyMD.Type;
+
+/**
+ * Values of the INT, LONG, FLOAT and BOOLEAN properties of a snapshot, stored in primitive
+ * typed columns, which are assigned by the {@link MetadataIndex}. Used to serve primitive getters
+ * without boxing.
+ * <p>
+ * Each column has a state: the value is either unknown (e.g. because it is invalid and reading
+ * it must fail), known to be null or known and stored. Instances are filled by the thread installing 
+ * a configuration, parsing the raw values (or defaults) in the same way as the regular typed getters, 
+ * but without logging the values. They must not be modified after being published.
+ */
+class PrimitiveValues
+{
+	static final Type[] TYPES = {Type.INT, Type.LONG, Type.FLOAT, Type.BOOLEAN};
+	static final byte UNKNOWN = 0;
+	static final byte NULL = 1;
+	static final byte SET = 2;
+
+	final int[] ints;
+	final byte[] intStates;
+	final long[] longs;
+	final byte[] longStates;
+	final double[] doubles;
+	final byte[] doubleStates;
+	final BitSet booleans;
+	final byte[] booleanStates;
+
+	/**
+	 * Fills all the columns.
+	 * @param properties the properties of the snapshot, with the prefix
+	 */
+	PrimitiveValues(MetadataIndex index, Map<String, PropertyMD> metadata, Properties properties, 
+			String prefix)
+	{
+		ints = new int[index.getKeys(Type.INT).size()];
+		intStates = new byte[ints.length];
+		longs = new long[index.getKeys(Type.LONG).size()];
+		longStates = new byte[longs.length];
+		doubles = new double[index.getKeys(Type.FLOAT).size()];
+		doubleStates = new byte[doubles.length];
+		booleanStates = new byte[index.getKeys(Type.BOOLEAN).size()];
+		booleans = new BitSet(booleanStates.length);
+		for (Type type: TYPES)
+		{
+			List<String> keys = index.getKeys(type);
+			for (int i=0; i<keys.size(); i++)
+			{
+				String key = keys.get(i);
+				fill(type, i, metadata.get(key), properties.getProperty(prefix + key));
+			}
+		}
+	}
+
+	/**
+	 * Copies the columns of the previous snapshot, refilling only the columns of the changed properties.
+	 * @param changed keys (without prefix) of the properties changed since the previous snapshot
+	 */
+	PrimitiveValues(PrimitiveValues previous, MetadataIndex index, Map<String, PropertyMD> metadata, 
+			Properties properties, String prefix, Collection<String> changed)
+	{
+		ints = previous.ints.clone();
+		intStates = previous.intStates.clone();
+		longs = previous.longs.clone();
+		longStates = previous.longStates.clone();
+		doubles = previous.doubles.clone();
+		doubleStates = previous.doubleStates.clone();
+		booleans = (BitSet) previous.booleans.clone();
+		booleanStates = previous.booleanStates.clone();
+		for (String key: changed)
+		{
+			PropertyMD meta = metadata.get(key);
+			if (meta == null || !isPrimitive(meta.getType()))
+				continue;
+			int column = index.getColumn(meta.getType(), key);
+			if (column >= 0)
+				fill(meta.getType(), column, meta, properties.getProperty(prefix + key));
+		}
+	}
+
+	private static boolean isPrimitive(Type type)
+	{
+		for (Type primitive: TYPES)
+			if (primitive == type)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Stores the value of a property in its column.
+	 * @param raw the value as set in properties or null if not set
+	 */
+	private void fill(Type type, int column, PropertyMD meta, String raw)
+	{
+		String value = raw != null ? raw.trim() : (meta.hasDefault() ? meta.getDefault() : null);
+		switch (type)
+		{
+		case INT:
+			Long intValue = parseInteger(value, meta, true);
+			intStates[column] = stateOf(value, intValue);
+			if (intValue != null)
+				ints[column] = intValue.intValue();
+			break;
+		case LONG:
+			Long longValue = parseInteger(value, meta, false);
+			longStates[column] = stateOf(value, longValue);
+			if (longValue != null)
+				longs[column] = longValue;
+			break;
+		case FLOAT:
+			Double doubleValue = parseDouble(value, meta);
+			doubleStates[column] = stateOf(value, doubleValue);
+			if (doubleValue != null)
+				doubles[column] = doubleValue;
+			break;
+		case BOOLEAN:
+			Boolean booleanValue = parseBoolean(value);
+			booleanStates[column] = stateOf(value, booleanValue);
+			booleans.set(column, Boolean.TRUE.equals(booleanValue));
+			break;
+		default:
+			throw new IllegalArgumentException("Not a primitive type: " + type);
+		}
+	}
+
+	/**
+	 * @return the state of a column: a value which could not be parsed remains unknown, 
+	 * so the regular getter will report the problem when used
+	 */
+	private static byte stateOf(String value, Object parsed)
+	{
+		if (value == null)
+			return NULL;
+		return parsed == null ? UNKNOWN : SET;
+	}
+
+	/**
+	 * @return the parsed value within the bounds or null if not set or invalid
+	 */
+	private static Long parseInteger(String value, PropertyMD meta, boolean intRange)
+	{
+		if (value == null)
+			return null;
+		long parsed;
+		try
+		{
+			parsed = intRange ? Integer.parseInt(value) : Long.parseLong(value);
+		} catch (NumberFormatException e)
+		{
+			return null;
+		}
+		return parsed < meta.getMin() || parsed > meta.getMax() ? null : parsed;
+	}
+
+	private static Double parseDouble(String value, PropertyMD meta)
+	{
+		if (value == null)
+			return null;
+		double parsed;
+		try
+		{
+			parsed = Double.parseDouble(value);
+		} catch (NumberFormatException e)
+		{
+			return null;
+		}
+		return parsed < meta.getMinFloat() || parsed > meta.getMaxFloat() ? null : parsed;
+	}
+
+	private static Boolean parseBoolean(String value)
+	{
+		if (value == null)
+			return null;
+		if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes"))
+			return true;
+		if (value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no"))
+			return false;
+		return null;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.Properties;
+
+/**
+ * Collects modifications of a configuration, which are applied together by
+ * {@link PropertiesHelper#update(java.util.function.Consumer)}. Works on a private copy of the
+ * configuration, so the modifications are not visible to others until the update is completed.
+ * All keys are given without the prefix of the helper.
+ * <p>
+ * Not thread safe, must be used only by the updating thread. The editor can not be used after
+ * the update was completed.
+ */
+public class PropertiesEditor
+{
+	private final String prefix;
+	private final Properties properties;
+	private volatile boolean closed;
+
+	PropertiesEditor(String prefix, Properties properties)
+	{
+		this.prefix = prefix;
+		this.properties = properties;
+	}
+
+	/**
+	 * Sets the property value. If the value is null, the property is removed.
+	 * @throws IllegalStateException if the update was already completed
+	 */
+	public PropertiesEditor set(String key, String value)
+	{
+		if (closed)
+			throw new IllegalStateException("The update was completed, the editor can not be used anymore");
+		if (value == null)
+			properties.remove(prefix + key);
+		else
+			properties.setProperty(prefix + key, value);
+		return this;
+	}
+
+	public PropertiesEditor remove(String key)
+	{
+		return set(key, null);
+	}
+
+	/**
+	 * @return the current value of the property, including the modifications made so far,
+	 * or null if it is not set
+	 */
+	public String get(String key)
+	{
+		return properties.getProperty(prefix + key);
+	}
+
+	void close()
+	{
+		closed = true;
+	}
+
+	Properties getProperties()
+	{
+		return properties;
+	}
+}
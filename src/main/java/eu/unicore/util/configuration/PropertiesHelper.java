@@ -6,24 +6,40 @@ package eu.unicore.util.configuration;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.Logger;
 
 import eu.unicore.util.configuration.PropertyMD.Type;
+import eu.unicore.util.configuration.ValidationResult.Rule;
+import eu.unicore.util.configuration.ValidationResult.Violation;
 
 /**
  * Provides methods to parse properties and return them as String, ints, longs, Files, arbitrary Enums 
@@ -80,20 +96,146 @@ import eu.unicore.util.configuration.PropertyMD.Type;
  * by overriding {@link #checkPropertyConstraints(PropertyMD, String)} method (not forgetting to call
  * super). 
  * <p>
- * This class is thread safe.
+ * This class is thread safe. Readers never block: the effective properties are kept in an immutable 
+ * snapshot, which is replaced as a whole (copy on write) when the configuration is updated. Updates are 
+ * serialized.
  * 
  * @author K. Benedyczak
  */
 public class PropertiesHelper implements Cloneable, UpdateableConfiguration, PropertiesHelperAPI
 {
-	private Set<String> warned = Collections.synchronizedSet(new HashSet<>());
+	private static final long NOT_A_NUMBER = Long.MIN_VALUE;
+	/**
+	 * Whether a class overrides {@link #checkConstraints(Properties)}, so its checks can not be 
+	 * replaced by the validation of a single changed property.
+	 */
+	private static final ClassValue<Boolean> CUSTOM_CHECKS = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			return isOverridden(type, "checkConstraints", Properties.class);
+		}
+	};
+	/**
+	 * Whether a class customizes checking of a single property, so the checks must be invoked 
+	 * through the methods which signal problems with exceptions.
+	 */
+	private static final ClassValue<Boolean> CUSTOM_PROPERTY_CHECKS = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			return isOverridden(type, "checkPropertyConstraints", PropertyMD.class, String.class) ||
+					isOverridden(type, "checkStructuredListConstraints", PropertyMD.class, String.class);
+		}
+	};
+	/**
+	 * Whether a class customizes reading of the typed values, so they can not be parsed in advance into 
+	 * the {@link PrimitiveValues} columns nor by the {@link PropertyHandle}s.
+	 */
+	private static final ClassValue<Boolean> CUSTOM_TYPED_GETTERS = new ClassValue<Boolean>()
+	{
+		@Override
+		protected Boolean computeValue(Class<?> type)
+		{
+			for (String getter: new String[] {"getValue", "getIntValue", "getIntValueNoCheck", "getLongValue", 
+					"getLongValueNoCheck", "getDoubleValue", "getDoubleValueNoCheck", "getBooleanValue"})
+				if (isOverridden(type, getter, String.class))
+					return true;
+			return isOverridden(type, "checkBounds", String.class, Number.class) ||
+					isOverridden(type, "getEnumValue", String.class, Class.class);
+		}
+	};
+	private final Set<String> warned = ConcurrentHashMap.newKeySet();
+	/**
+	 * Properties of which custom checks are being run by the current thread. The checks may read 
+	 * the checked property, what in the lazy validation mode must not check it again.
+	 */
+	private final ThreadLocal<Set<String>> checkedByThread = ThreadLocal.withInitial(HashSet::new);
+	private boolean logValues = true;
+	private boolean readOnly = false;
 	protected Logger log;
-	protected Properties properties;
+	private volatile PropertiesSnapshot snapshot;
+	/**
+	 * Effective properties of the current snapshot, kept for subclasses. 
+	 * Never modified in place: replaced when a new configuration is installed.
+	 */
+	protected volatile Properties properties;
 	protected String prefix;
 	protected Map<String, PropertyMD> metadata;
-	protected List<PropertyChangeListener> genericListeners = new ArrayList<>();
-	protected Map<String, List<PropertyChangeListener>> propertyFocusedListeners = new HashMap<>(); 
-	protected Set<String> structuredPrefixes = new HashSet<>();
+	/**
+	 * Read only set of the structured list keys defined in metadata.
+	 * @deprecated structured lists are defined by the metadata, kept only for compatibility of subclasses
+	 */
+	@Deprecated
+	protected final Set<String> structuredPrefixes;
+	private final ListenerRegistry listeners = new ListenerRegistry(this::canHaveSubkeys);
+	/**
+	 * Read only view of the listeners interested in all properties.
+	 * @deprecated listeners are kept in an internal registry, use 
+	 * {@link #addPropertyChangeListener(PropertyChangeListener)} and 
+	 * {@link #removePropertyChangeListener(PropertyChangeListener)} to modify them.
+	 */
+	@Deprecated
+	protected final List<PropertyChangeListener> genericListeners = new AbstractList<PropertyChangeListener>()
+	{
+		@Override
+		public PropertyChangeListener get(int index)
+		{
+			return listeners.getGenericListeners()[index];
+		}
+
+		@Override
+		public int size()
+		{
+			return listeners.getGenericListeners().length;
+		}
+		
+		@Override
+		public Iterator<PropertyChangeListener> iterator()
+		{
+			return Arrays.asList(listeners.getGenericListeners()).iterator();
+		}
+	};
+	/**
+	 * Read only view of the listeners interested in particular properties, by the property key.
+	 * @deprecated listeners are kept in an internal registry, use 
+	 * {@link #addPropertyChangeListener(PropertyChangeListener)} and 
+	 * {@link #removePropertyChangeListener(PropertyChangeListener)} to modify them.
+	 */
+	@Deprecated
+	protected final Map<String, List<PropertyChangeListener>> propertyFocusedListeners = 
+			new AbstractMap<String, List<PropertyChangeListener>>()
+	{
+		@Override
+		public Set<Map.Entry<String, List<PropertyChangeListener>>> entrySet()
+		{
+			Map<String, List<PropertyChangeListener>> ret = new LinkedHashMap<>();
+			for (Map.Entry<String, PropertyChangeListener[]> entry: listeners.getFocusedListeners().entrySet())
+				ret.put(entry.getKey(), Collections.unmodifiableList(Arrays.asList(entry.getValue())));
+			return Collections.unmodifiableMap(ret).entrySet();
+		}
+	};
+	private final ListenerDispatcher dispatcher;
+	private final MetadataIndex metadataIndex;
+	private final PropertiesHelperOptions options;
+	/**
+	 * Handles by their value type and then by the property name
+	 */
+	private final Map<Class<?>, Map<String, PropertyHandle<?>>> handles = new ConcurrentHashMap<>();
+	private final AtomicInteger handlesNumber = new AtomicInteger();
+	private volatile Map<ReloadStage, Duration> stageDurations = Collections.emptyMap();
+	/**
+	 * Snapshot checked by the last {@link #checkConstraints(Properties)}, so the file attributes 
+	 * prefetched when validating can be reused by the snapshot installed afterwards.
+	 */
+	private volatile PropertiesSnapshot lastChecked;
+	/**
+	 * Deprecated settings (metadata keys) present in the last checked configuration, which were already 
+	 * reported.
+	 */
+	private volatile Set<String> reportedDeprecated = Collections.emptySet();
 	
 	/**
 	 * 
@@ -107,17 +249,51 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	public PropertiesHelper(String prefix, Properties properties, Map<String, PropertyMD> propertiesMD, 
 			Logger log)
 	{
-		this.properties = new Properties();
-		this.properties.putAll(properties);
+		this(prefix, properties, propertiesMD, log, new PropertiesHelperOptions());
+	}
+
+	/**
+	 * As {@link #PropertiesHelper(String, Properties, Map, Logger)} but allows for using non default options.
+	 */
+	public PropertiesHelper(String prefix, Properties properties, Map<String, PropertyMD> propertiesMD, 
+			Logger log, PropertiesHelperOptions options)
+	{
+		this(prefix, propertiesMD, log, options.clone());
+		StageTimer timer = new StageTimer(ReloadStage.LOAD, System.nanoTime());
+		Properties effective = preprocess(copy(properties), timer);
+		timer.begin(ReloadStage.VALIDATE);
+		publish(newSnapshot(effective));
+		if (this.options.isLazyValidation())
+		{
+			snapshot.setUnvalidated(getDeferredChecks());
+			ValidationResult result = new ValidationResult();
+			checkConstraints(true, result);
+			result.throwIfInvalid();
+		} else
+		{
+			checkConstraints();
+		}
+		timer.begin(ReloadStage.UNKNOWN_AND_DEPRECATED);
+		findUnknown(effective);
+		checkDeprecated(effective);
+		timer.begin(ReloadStage.PUBLISH);
+		initializeSnapshot();
+		stageDurations = timer.end(log);
+	}
+
+	/**
+	 * Creates a helper without any configuration installed. 
+	 */
+	private PropertiesHelper(String prefix, Map<String, PropertyMD> propertiesMD, Logger log, 
+			PropertiesHelperOptions options)
+	{
 		this.prefix = prefix;
 		this.log = log;
-		this.metadata = propertiesMD;
-		if (this.metadata == null)
-			this.metadata = Collections.emptyMap();
-		this.properties = ConfigIncludesProcessor.preprocess(this.properties, log);
-		checkConstraints();
-		findUnknown(this.properties);
-		checkDeprecated(this.properties);
+		this.metadata = propertiesMD == null ? Collections.emptyMap() : propertiesMD;
+		this.options = options;
+		this.metadataIndex = MetadataIndex.of(metadata);
+		this.structuredPrefixes = Collections.unmodifiableSet(metadataIndex.getStructuredListKeys());
+		this.dispatcher = newDispatcher(options, log);
 	}
 
 	/**
@@ -126,71 +302,403 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	 */
 	protected PropertiesHelper(PropertiesHelper source)
 	{
-		this.properties = new Properties();
-		this.properties.putAll(source.properties);
+		this(source, source.snapshot.getProperties(), newDispatcher(source.options, source.log));
+		this.warned.addAll(source.warned);
+		this.stageDurations = source.stageDurations;
+		this.reportedDeprecated = source.reportedDeprecated;
+		Set<String> unvalidated = source.snapshot.getUnvalidated();
+		if (unvalidated != null)
+		{
+			Set<String> copied = ConcurrentHashMap.newKeySet();
+			copied.addAll(unvalidated);
+			snapshot.setUnvalidated(copied);
+		}
+		initializeSnapshot();
+	}
+
+	/**
+	 * Creates a helper with the same settings as the source one, wrapping the given, already preprocessed 
+	 * properties. No checks are performed.
+	 * @param dispatcher null if listeners of the helper are notified synchronously, what is also used 
+	 * for the internal helpers which have no listeners.
+	 */
+	private PropertiesHelper(PropertiesHelper source, Properties effective, ListenerDispatcher dispatcher)
+	{
+		publish(newSnapshot(effective));
 		this.prefix = source.prefix;
 		this.log = source.log;
 		this.metadata = source.metadata;
-		this.warned.addAll(source.warned);
-		this.structuredPrefixes.addAll(source.structuredPrefixes);
+		this.metadataIndex = source.metadataIndex;
+		this.structuredPrefixes = source.structuredPrefixes;
+		this.options = source.options;
+		this.dispatcher = dispatcher;
+	}
+
+	private static ListenerDispatcher newDispatcher(PropertiesHelperOptions options, Logger log)
+	{
+		return options.isAsynchronousListeners() ? 
+				new ListenerDispatcher(options.getListenerExecutor(), log) : null;
 	}
 	
+	/**
+	 * Preprocessing and validation of the new properties is performed without any lock held,
+	 * only the installation of the new configuration and listeners notification is serialized
+	 * with other updates. Each of the {@link ReloadStage}s is performed once.
+	 */
 	@Override
-	public synchronized void setProperties(Properties properties)
+	public void setProperties(Properties properties)
 	{
-		Properties copied = new Properties();
-		copied.putAll(properties);
-		copied = ConfigIncludesProcessor.preprocess(copied, log);
-		checkConstraints(copied);
-		findUnknown(copied);
-		checkDeprecated(copied);
-		boolean different = differ(copied, this.properties);
-		Set<String> changed = filterChanged(propertyFocusedListeners.keySet(), 
-				this.properties, copied);
-		this.properties.clear();
-		this.properties.putAll(copied);
-		if(different)notifyGenericListeners();
-		for (String changedP: changed)
-			notifyFocusedListeners(changedP);
+		setProperties(properties, System.nanoTime());
 	}
-	
-	// check if properties have changed or not
-	private boolean differ(Properties p1, Properties p2) {
-		if(p1==null || p2==null)return true;
-		Map<String,String> m1 = new PropertyGroupHelper(PropertyGroupHelper.asMap(p1),prefix)
-				.getFilteredMap();
-		Map<String,String> m2 = new PropertyGroupHelper(PropertyGroupHelper.asMap(p2),prefix)
-				.getFilteredMap();
-		if(m1.size()!=m2.size())return true;
-		for(String k1: m1.keySet()) {
-			if(!m1.get(k1).equals(m2.get(k1)))return true;
+
+	/**
+	 * @param loadStart when loading of the properties was started, to be included in the 
+	 * {@link ReloadStage#LOAD} stage
+	 */
+	void setProperties(Properties properties, long loadStart)
+	{
+		checkModifiable();
+		StageTimer timer = new StageTimer(ReloadStage.LOAD, loadStart);
+		Properties effective = preprocess(copy(properties), timer);
+		timer.begin(ReloadStage.VALIDATE);
+		checkConstraints(effective);
+		timer.begin(ReloadStage.UNKNOWN_AND_DEPRECATED);
+		findUnknown(effective);
+		checkDeprecated(effective);
+		synchronized(this)
+		{
+			timer.begin(ReloadStage.PUBLISH);
+			ChangeSet changes = ChangeSet.of(prefix, snapshot.getProperties(), effective);
+			Set<String> changed = listeners.getAffectedKeys(changes);
+			PropertyChangeEvent event = newEvent(changes, snapshot.getProperties(), effective);
+			PropertiesSnapshot next = newSnapshot(effective);
+			PropertiesSnapshot checked = lastChecked;
+			if (checked != null && checked.getProperties() == effective)
+				next.cacheFileStatuses(checked);
+			lastChecked = null;
+			publish(next);
+			initializeSnapshot();
+			stageDurations = timer.end(log);
+			if (!changes.isEmpty())
+				notifyGenericListeners(event);
+			for (String changedP: changed)
+				notifyFocusedListeners(changedP, event);
 		}
-		return false;
 	}
 
+	/**
+	 * @return durations of the stages of the last successful installation of a whole configuration,
+	 * i.e. performed by the constructor or {@link #setProperties(Properties)}. 
+	 */
+	public Map<ReloadStage, Duration> getReloadStageDurations()
+	{
+		return stageDurations;
+	}
+
+	private static Properties copy(Properties properties)
+	{
+		Properties copied = new Properties();
+		copied.putAll(properties);
+		return copied;
+	}
+
+	/**
+	 * Resolves variables and includes. The argument may be modified.
+	 */
+	private Properties preprocess(Properties properties, StageTimer timer)
+	{
+		timer.begin(ReloadStage.VARIABLES);
+		Properties withVars = VariablesProcessor.process(properties, log);
+		timer.begin(ReloadStage.INCLUDES);
+		return new ConfigIncludesProcessor(log).processIncludesOnly(withVars);
+	}
+	
+	/**
+	 * Only the changed property is validated, together with its metadata owner (e.g. the list it belongs to)
+	 * and the structured list element it is part of. The whole configuration is validated only when 
+	 * the change requires preprocessing (i.e. includes or variables are involved) or when a subclass overrides 
+	 * {@link #checkConstraints(Properties)}.
+	 */
 	@Override
 	public synchronized void setProperty(String key, String value)
 	{
-		Properties tmp = new Properties();
-		tmp.putAll(properties);
+		checkModifiable();
+		Properties tmp = snapshot.copyProperties();
 		
-		boolean change;
 		//value == null can not be set
 		if (value == null)
+			tmp.remove(prefix+key);
+		else
+			tmp.setProperty(prefix+key, value);
+		ChangeSet changes = ChangeSet.ofProperty(key, snapshot.getProperty(prefix+key), value);
+		Set<String> keys = Collections.singleton(key);
+		Set<String> unvalidated = checkChanged(tmp, keys);
+		PropertyChangeEvent event = newEvent(changes, snapshot.getProperties(), tmp);
+		publishChanged(tmp, keys, unvalidated);
+		notifyGenericListeners(event);
+		if (!changes.isEmpty())
+			notifyFocusedListeners(key, event);
+	}
+
+	/**
+	 * Applies many modifications of the configuration at once. The modifications are made on a private copy 
+	 * of the configuration, which is validated once and installed only if valid. Each affected listener is 
+	 * notified once, after all modifications were installed, and only if anything was changed. A listener 
+	 * interested in many of the changed properties is notified with the first of its keys which was changed, 
+	 * the {@link PropertyChangeEvent} describes all the changes. Validation is performed 
+	 * as in {@link #setProperty(String, String)}, considering all changed properties.
+	 * @param modifications invoked with an editor of the configuration copy
+	 * @throws ConfigurationException if the modified configuration is invalid. Then nothing is changed.
+	 */
+	public synchronized void update(Consumer<PropertiesEditor> modifications)
+	{
+		checkModifiable();
+		PropertiesEditor editor = new PropertiesEditor(prefix, snapshot.copyProperties());
+		try
 		{
-			change = tmp.remove(prefix+key) != null;
-		} else
+			modifications.accept(editor);
+		} finally
 		{
-			change = !value.equals(properties.getProperty(prefix+key));
-			tmp.setProperty(prefix+key, value);
+			//the edited properties become the snapshot, so must not be modified later
+			editor.close();
 		}
-		checkConstraints(tmp);
-		
-		properties = tmp;
-		warned.remove(key);
-		notifyGenericListeners();
-		if (change)
-			notifyFocusedListeners(key);
+		Properties updated = editor.getProperties();
+		ChangeSet changes = ChangeSet.of(prefix, snapshot.getProperties(), updated);
+		if (changes.isEmpty())
+			return;
+		Set<String> unvalidated = checkChanged(updated, changes.getChanged());
+		Set<String> changed = listeners.getAffectedKeys(changes);
+		PropertyChangeEvent event = newEvent(changes, snapshot.getProperties(), updated);
+		publishChanged(updated, changes.getChanged(), unvalidated);
+		notifyGenericListeners(event);
+		Set<PropertyChangeListener> notified = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (String changedP: changed)
+			for (PropertyChangeListener listener: listeners.getListeners(changedP))
+				if (notified.add(listener))
+					deliver(listener, changedP, event);
+	}
+
+	/**
+	 * Validates the updated properties, in which only the given properties (without prefix) were changed.
+	 * @return in lazy validation mode: the properties which still need to be validated on first use,
+	 * otherwise null
+	 */
+	private Set<String> checkChanged(Properties updated, Collection<String> keys)
+	{
+		boolean deltaPossible = true;
+		for (String key: keys)
+			deltaPossible &= isDeltaValidationPossible(key, updated.getProperty(prefix+key));
+		if (!deltaPossible)
+		{
+			Properties effective = ConfigIncludesProcessor.preprocess(copy(updated), log);
+			checkConstraints(effective);
+			lastChecked = null;
+			findUnknown(effective);
+			checkDeprecated(effective);
+			return null;
+		}
+		PropertiesHelper checked = new PropertiesHelper(this, updated, null);
+		for (String key: keys)
+			checked.checkChangedProperty(key);
+		checkDeprecated(updated);
+		Set<String> unvalidated = snapshot.getUnvalidated();
+		if (unvalidated == null)
+			return null;
+		//lazy mode: only the changed properties were checked
+		Set<String> stillUnvalidated = ConcurrentHashMap.newKeySet();
+		stillUnvalidated.addAll(unvalidated);
+		for (String key: keys)
+		{
+			String metaKey = getMetadataKey(key);
+			if (metaKey != null)
+				stillUnvalidated.remove(metaKey);
+		}
+		return stillUnvalidated;
+	}
+
+	private void publishChanged(Properties updated, Collection<String> keys, Set<String> unvalidated)
+	{
+		PrimitiveValues previous = snapshot.getPrimitiveValues();
+		publish(newSnapshot(updated));
+		if (unvalidated != null)
+			snapshot.setUnvalidated(unvalidated);
+		initializeSnapshot(previous, keys);
+		warned.removeAll(keys);
+	}
+
+	private boolean isDeltaValidationPossible(String key, String value)
+	{
+		if (CUSTOM_CHECKS.get(getClass()))
+			return false;
+		String fullKey = prefix + key;
+		if (fullKey.startsWith(ConfigIncludesProcessor.INCLUDE) || 
+				fullKey.startsWith(VariablesProcessor.VARIABLE_PFX))
+			return false;
+		return value == null || !value.contains("${");
+	}
+
+	private PropertiesSnapshot newSnapshot(Properties effective)
+	{
+		return new PropertiesSnapshot(effective, handlesNumber.get());
+	}
+
+	PropertiesSnapshot getSnapshot()
+	{
+		return snapshot;
+	}
+	
+	/**
+	 * Makes the given snapshot the current one. Must be invoked only by the updating thread.
+	 */
+	private void publish(PropertiesSnapshot newSnapshot)
+	{
+		this.snapshot = newSnapshot;
+		this.properties = newSnapshot.getProperties();
+	}
+
+	/**
+	 * @return keys of the properties which constraints are not checked eagerly in the lazy validation mode
+	 */
+	private Set<String> getDeferredChecks()
+	{
+		Set<String> ret = ConcurrentHashMap.newKeySet();
+		for (Map.Entry<String, PropertyMD> entry: metadataIndex.getEntries())
+		{
+			PropertyMD meta = entry.getValue();
+			if (!meta.isStructuredListEntry() && meta.getType() != Type.STRUCTURED_LIST)
+				ret.add(entry.getKey());
+		}
+		return ret;
+	}
+
+	/**
+	 * In the lazy validation mode checks the constraints of a property on its first use.
+	 */
+	private void checkOnFirstUse(PropertiesSnapshot current, String name)
+	{
+		Set<String> unvalidated = current.getUnvalidated();
+		if (unvalidated == null || !unvalidated.contains(name) || checkedByThread.get().contains(name))
+			return;
+		Optional<Violation> outcome = current.getCheckOutcome(name);
+		if (outcome == null)
+		{
+			//concurrent readers may check the same property, the first stored outcome is used by all
+			outcome = current.putCheckOutcome(name, Optional.ofNullable(checkProperty(metadata.get(name), name)));
+		}
+		if (outcome.isPresent())
+			throw new ConfigurationException(outcome.get().getMessage());
+	}
+
+	/**
+	 * Checks all constraints of the current configuration. Useful only when the lazy validation mode 
+	 * is used (see {@link PropertiesHelperOptions#setLazyValidation(boolean)}), 
+	 * otherwise the configuration is always completely checked when it is installed.
+	 * @throws ConfigurationException if the current configuration is invalid
+	 */
+	public synchronized void validateAll()
+	{
+		PropertiesSnapshot current = snapshot;
+		if (current.getUnvalidated() == null)
+			return;
+		checkConstraints();
+		current.setUnvalidated(null);
+		initializeSnapshot();
+	}
+
+	/**
+	 * Fills the current snapshot with data computed in advance: stores values of the primitive typed 
+	 * properties in its primitive columns. Must be invoked only by the updating thread, after the snapshot 
+	 * was published.
+	 */
+	private void initializeSnapshot()
+	{
+		initializeSnapshot(null, null);
+	}
+
+	/**
+	 * As {@link #initializeSnapshot()} but reuses the primitive columns of the replaced snapshot.
+	 * @param previous primitive values of the replaced snapshot or null to fill all columns
+	 * @param changed keys (without prefix) of the properties changed since the replaced snapshot
+	 */
+	private void initializeSnapshot(PrimitiveValues previous, Collection<String> changed)
+	{
+		PropertiesSnapshot current = snapshot;
+		//with lazy validation the values are read (and checked) on first use
+		if (current.getUnvalidated() != null || CUSTOM_TYPED_GETTERS.get(getClass()))
+			return;
+		current.setPrimitiveValues(previous == null ? 
+				new PrimitiveValues(metadataIndex, metadata, current.getProperties(), prefix) :
+				new PrimitiveValues(previous, metadataIndex, metadata, current.getProperties(), prefix, changed));
+	}
+
+	/**
+	 * Reads in bulk the filesystem attributes of all set PATH properties of the current snapshot,
+	 * which were not read yet. Invoked when the snapshot is validated, what for a new configuration
+	 * happens before it is installed, so without holding the monitor. 
+	 */
+	private void prefetchPaths()
+	{
+		PropertiesSnapshot current = snapshot;
+		for (String key: metadataIndex.getKeys(Type.PATH))
+		{
+			//not validating read, the values are checked using the prefetched attributes
+			String path = getValue(current, key);
+			if (path != null && current.getCachedFileStatus(path) == null)
+				current.cacheFileStatus(path, FileStatus.read(path));
+		}
+	}
+
+	/**
+	 * @return the options of this helper. Must not be modified.
+	 */
+	protected PropertiesHelperOptions getOptions()
+	{
+		return options;
+	}
+
+	/**
+	 * Returns a precompiled accessor of a property, useful for properties which are read very frequently. 
+	 * The returned handle follows configuration updates. Calling this method again with the same arguments
+	 * returns the same handle. Handles are never released, each takes a slot in every configuration snapshot 
+	 * as long as this helper is used. Therefore handles should be created for a fixed set of properties, 
+	 * not e.g. for keys built at runtime.
+	 * @param name property name (without prefix)
+	 * @param type type of the property value: String, Integer, Long, Double, Boolean or an enum.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> PropertyHandle<T> handle(String name, Class<T> type)
+	{
+		PropertyHandle.checkType(type);
+		return (PropertyHandle<T>) handles.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+				.computeIfAbsent(name, n -> new PropertyHandle<>(this, n, prefix + n, getMetadata(n), 
+						type, handlesNumber.getAndIncrement()));
+	}
+
+	/**
+	 * Reads the value of a handle's property in the same way as the typed getter of the handle's type, 
+	 * but parsing it with the key and metadata resolved when the handle was created.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	<T> T readHandle(PropertiesSnapshot current, PropertyHandle<T> handle) throws ConfigurationException
+	{
+		String name = handle.getName();
+		Class<T> type = handle.getType();
+		PropertyMD meta = handle.getMetadata();
+		if (meta == null || CUSTOM_TYPED_GETTERS.get(getClass()))
+			return PropertyHandle.read(this, name, type);
+		checkOnFirstUse(current, name);
+		String val = getValue(current, name, handle.getKey(), meta);
+		if (type == String.class)
+			return (T) val;
+		if (type == Integer.class)
+			return (T) checkBounds(name, meta, parseInt(name, val));
+		if (type == Long.class)
+			return (T) checkBounds(name, meta, parseLong(name, val));
+		if (type == Double.class)
+			return (T) checkBounds(name, meta, parseDouble(name, val));
+		if (type == Boolean.class)
+			return (T) parseBoolean(name, val);
+		return (T) parseEnum(name, val, (Class) type);
 	}
 
 	protected boolean canHaveSubkeys(String key) 
@@ -202,373 +710,710 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 		return false;
 	}
 	
+	/**
+	 * @return those of the given keys which denote properties or groups of properties 
+	 * (if the key can have subkeys) changed in the updated properties
+	 */
 	protected Set<String> filterChanged(Set<String> toCheck, Properties orig, Properties updated)
 	{
-		Set<String> ret = new HashSet<>();
-		for (String p: toCheck)
-		{
-			boolean group = canHaveSubkeys(p);
-			
-			if (!group)
-			{
-				String origVal = orig.getProperty(prefix+p);
-				String updatedVal = updated.getProperty(prefix+p);
-				if (origVal == null || updatedVal == null) 
-				{
-					if (origVal != updatedVal)
-						ret.add(p);
-				} else
-				{
-					if (!origVal.equals(updatedVal))
-						ret.add(p);
-				}
-			} else
-			{ //for properties with subkeys we check if any of the properties in the group changed
-				Map<String, String> origGroup = new PropertyGroupHelper(orig, prefix+p).getFilteredMap();
-				Map<String, String> updatedGroup = new PropertyGroupHelper(updated, prefix+p).getFilteredMap();
-				if (!origGroup.equals(updatedGroup))
-					ret.add(p);
-			}
-		}
-		return ret;
+		return ChangeSet.of(prefix, orig, updated).filter(toCheck, this::canHaveSubkeys);
 	}
 	
 	protected void notifyFocusedListeners(String property)
 	{
-		synchronized(genericListeners)
-		{
-			//we have to handle differently the listeners which listen to updates of properties with subkeys
-			for (String key: propertyFocusedListeners.keySet())
-			{
-				if (key.equals(property))
-				{
-					notifyAllWithKey(key, property);
-				} else if (property.startsWith(key) && canHaveSubkeys(key))
-				{
-					notifyAllWithKey(key, property);
-				}
-			}
-		}		
+		notifyFocusedListeners(property, currentEvent());
+	}
+
+	private void notifyFocusedListeners(String property, PropertyChangeEvent event)
+	{
+		//listeners of properties with subkeys are notified about changes of all their subkeys
+		listeners.forMatchingKeys(property, key -> notifyAllWithKey(key, property, event));
 	}
 
 	protected void notifyAllWithKey(String key, String property)
 	{
-		List<PropertyChangeListener> listeners = propertyFocusedListeners.get(key);
-		for (PropertyChangeListener listener: listeners)
-			listener.propertyChanged(property);
+		notifyAllWithKey(key, property, currentEvent());
+	}
+
+	private void notifyAllWithKey(String key, String property, PropertyChangeEvent event)
+	{
+		for (PropertyChangeListener listener: listeners.getListeners(key))
+			deliver(listener, property, event);
 	}
 	
 	protected void notifyGenericListeners()
 	{
-		synchronized(genericListeners)
-		{
-			for (PropertyChangeListener listener: genericListeners)
-				listener.propertyChanged(null);
-		}		
+		notifyGenericListeners(currentEvent());
+	}
+
+	private void notifyGenericListeners(PropertyChangeEvent event)
+	{
+		for (PropertyChangeListener listener: listeners.getGenericListeners())
+			deliver(listener, null, event);
+	}
+
+	private void deliver(PropertyChangeListener listener, String property, PropertyChangeEvent event)
+	{
+		if (dispatcher != null)
+			dispatcher.dispatch(listener, property, event);
+		else
+			PropertyChangeEvent.deliver(listener, property, event);
+	}
+
+	/**
+	 * @return event describing the change of the original properties to the updated ones or null 
+	 * if no listener needs it
+	 */
+	private PropertyChangeEvent newEvent(ChangeSet changes, Properties original, Properties updated)
+	{
+		if (!listeners.hasEventListeners())
+			return null;
+		return new PropertyChangeEvent(null, changes, view(original), view(updated));
+	}
+
+	/**
+	 * @return event for notifications which are not caused by a known change
+	 */
+	private PropertyChangeEvent currentEvent()
+	{
+		Properties current = snapshot.getProperties();
+		return newEvent(ChangeSet.empty(), current, current);
+	}
+
+	/**
+	 * @return read only helper with the given, already checked properties
+	 */
+	private PropertiesHelper view(Properties properties)
+	{
+		PropertiesHelper ret = new PropertiesHelper(this, properties, null);
+		//values are logged by this helper
+		ret.logValues = false;
+		ret.readOnly = true;
+		return ret;
+	}
+
+	private void checkModifiable()
+	{
+		if (readOnly)
+			throw new UnsupportedOperationException("The configuration view can not be modified");
+	}
+
+	/**
+	 * @return number of listener notifications which are queued and not yet delivered. 
+	 * Always 0 unless {@link PropertiesHelperOptions#setAsynchronousListeners(boolean)} is used.
+	 */
+	public int getListenerQueueDepth()
+	{
+		return dispatcher == null ? 0 : dispatcher.getQueueDepth();
 	}
 	
 	@Override
 	public void addPropertyChangeListener(PropertyChangeListener listener) 
 	{
-		synchronized(genericListeners)
+		checkModifiable();
+		listeners.add(listener);
+	}
+	
+	@Override
+	public void removePropertyChangeListener(PropertyChangeListener listener)
+	{
+		listeners.remove(listener);
+	}
+	
+	/**
+	 * Checks if new properties are correct. Only constraints are checked, unknown and deprecated
+	 * properties are detected separately.
+	 * @param properties properties to be checked, with variables and includes already resolved.
+	 */
+	protected void checkConstraints(Properties properties)
+	{
+		//tricky but short
+		PropertiesHelper checked = new PropertiesHelper(this, properties, null);
+		checked.checkConstraints();
+		lastChecked = checked.snapshot;
+	}
+
+	/**
+	 * Validates the given properties, collecting all the problems found instead of throwing an exception. 
+	 * The checks are the same as performed by the constructor: variables and includes are resolved, 
+	 * then constraints are checked and unknown properties are detected. Deprecated properties are not 
+	 * reported.
+	 * @param prefix prefix which is always added to any property being queried
+	 * @param properties properties to be checked
+	 * @param propertiesMD metadata about properties
+	 * @param log log object to be used
+	 */
+	public static ValidationResult validate(String prefix, Properties properties, 
+			Map<String, PropertyMD> propertiesMD, Logger log)
+	{
+		ValidationResult result = new ValidationResult();
+		Properties effective;
+		try
 		{
-			if (listener.getInterestingProperties() == null)
-				genericListeners.add(listener);
-			else
+			effective = ConfigIncludesProcessor.preprocess(copy(properties), log);
+		} catch (ConfigurationException e)
+		{
+			result.add(new Violation(null, Rule.PREPROCESSING, null, null, e.getMessage()));
+			return result;
+		}
+		PropertiesHelper helper = new PropertiesHelper(prefix, propertiesMD, log, new PropertiesHelperOptions());
+		helper.publish(helper.newSnapshot(effective));
+		helper.checkConstraints(false, result);
+		helper.findUnknown(effective, result);
+		return result;
+	}
+
+	/**
+	 * Checks the properties after a single property was changed, assuming that all other properties 
+	 * were already validated. Only the changed property, its metadata owner and (if any) the structured 
+	 * list element containing it are checked. Errors are reported in the same way as by
+	 * {@link #checkConstraints()}.
+	 * @param key the changed property, without prefix
+	 */
+	private void checkChangedProperty(String key)
+	{
+		ValidationResult result = new ValidationResult();
+		//also keys which are not known members (e.g. only an element id) define a list element
+		String listKey = metadataIndex.getStructuredListOf(key);
+		Violation violation = null;
+		if (listKey != null && key.length() > listKey.length())
+		{
+			violation = checkStructuredListElementOf(key, listKey);
+		} else
+		{
+			String metaKey = getMetadataKey(key);
+			PropertyMD meta = metaKey == null ? null : metadata.get(metaKey);
+			if (meta != null && !meta.isStructuredListEntry())
+				violation = checkProperty(meta, metaKey);
+		}
+		if (violation != null)
+			result.add(violation);
+		String value = snapshot.getProperty(prefix+key);
+		Properties changed = new Properties();
+		if (value != null)
+		{
+			changed.setProperty(prefix+key, value);
+			findUnknown(changed, result);
+		}
+		result.throwIfInvalid();
+	}
+
+	private static boolean isOverridden(Class<?> type, String method, Class<?>... parameters)
+	{
+		for (Class<?> c = type; c != PropertiesHelper.class; c = c.getSuperclass())
+		{
+			try
 			{
-				String[] interestingProps = listener.getInterestingProperties();
-				for (String prop: interestingProps)
-				{
-					List<PropertyChangeListener> propListeners = propertyFocusedListeners.get(prop);
-					if (propListeners == null) 
-					{
-						propListeners = new ArrayList<>();
-						propertyFocusedListeners.put(prop, propListeners);
-					}
-					propListeners.add(listener);
-				}
+				c.getDeclaredMethod(method, parameters);
+				return true;
+			} catch (NoSuchMethodException e)
+			{
+				//not overridden here, check superclass
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Checks the structured list element containing the given key in the same way as
+	 * {@link #getStructuredListViolation(PropertyMD, String)}, using only the properties of the element.
+	 */
+	private Violation checkStructuredListElementOf(String key, String listKey)
+	{
+		PropertyMD listMeta = metadata.get(listKey);
+		int elementEnd = key.indexOf('.', listKey.length());
+		if (elementEnd < 0)
+			elementEnd = key.length();
+		String elementId = key.substring(listKey.length(), elementEnd);
+		Violation ret = checkStructuredListElementId(listMeta, listKey, elementId);
+		if (ret != null)
+			return ret;
+		String element = listKey + elementId + '.';
+		SortedMap<String, String> members = snapshot.getPropertiesWithPrefix(prefix+element);
+		//removal of the last property of an element removes the whole element
+		if (!members.isEmpty() || snapshot.containsKey(prefix+listKey+elementId))
+			return checkStructuredListElement(element, members.keySet().iterator(),
+					metadataIndex.getMandatoryMembers(listKey));
+		if (listMeta.isMandatory() && !hasStructuredListElements(listKey))
+			return new Violation(prefix+listKey, Rule.MANDATORY, null, null, 
+					"The list " + getKeyDescription(listKey) + " must have elements");
+		return null;
+	}
+
+	private boolean hasStructuredListElements(String listKey)
+	{
+		for (String property: snapshot.getPropertiesWithPrefix(prefix+listKey).keySet())
+			if (property.length() > prefix.length() + listKey.length())
+				return true;
+		return false;
+	}
+
+	/**
+	 * Logs deprecated settings. Only the settings which were not present in the previously checked 
+	 * configuration are reported, so reloads do not repeat the warnings.
+	 */
+	protected void checkDeprecated(Properties toCheck)
+	{
+		List<String> deprecated = metadataIndex.getDeprecatedKeys();
+		if (deprecated.isEmpty() && reportedDeprecated.isEmpty())
+			return;
+		Set<String> present = new HashSet<>();
+		for (String key: deprecated)
+		{
+			if (!toCheck.containsKey(prefix + key))
+				continue;
+			present.add(key);
+			if (!reportedDeprecated.contains(key))
+				log.warn("The setting " + getKeyDescription(key) + 
+						" is deprecated and will be ignored. "
+						+ "Please remove it from configuration.");
+		}
+		reportedDeprecated = present;
 	}
 	
-	@Override
-	public void removePropertyChangeListener(PropertyChangeListener listener)
+	/**
+	 * Checks if the properties set to this object are correct.
+	 */
+	protected void checkConstraints()
+	{
+		ValidationResult result = new ValidationResult();
+		checkConstraints(false, result);
+		result.throwIfInvalid();
+	}
+
+	/**
+	 * Checks the constraints of all metadata entries, recording the problems found.
+	 * @param eagerOnly if true only the checks which are not deferred in the lazy validation mode 
+	 * are performed, see {@link #checkEagerConstraints(PropertyMD, String)}
+	 */
+	private void checkConstraints(boolean eagerOnly, ValidationResult result)
+	{
+		if (options.isPathsPrefetched())
+			prefetchPaths();
+		List<Map.Entry<String, PropertyMD>> entries = metadataIndex.getEntries();
+		Violation[] problems = new Violation[entries.size()];
+		ForkJoinPool pool = options.getValidationPool();
+		if (pool != null && entries.size() >= options.getParallelValidationThreshold())
+			pool.invoke(new ConstraintsCheck(entries, problems, 0, entries.size(), eagerOnly));
+		else
+			checkConstraints(entries, problems, 0, entries.size(), eagerOnly);
+
+		for (Violation problem: problems)
+			if (problem != null)
+				result.add(problem);
+	}
+	
+	/**
+	 * Checks the constraints of the given range of metadata entries, storing the problems found 
+	 * under the entries indexes. 
+	 */
+	private void checkConstraints(List<Map.Entry<String, PropertyMD>> entries, Violation[] problems, 
+			int from, int to, boolean eagerOnly)
 	{
-		synchronized(genericListeners)
+		for (int i=from; i<to; i++)
+		{
+			Map.Entry<String, PropertyMD> o = entries.get(i);
+			problems[i] = eagerOnly ? checkEagerConstraints(o.getValue(), o.getKey()) : 
+				checkProperty(o.getValue(), o.getKey());
+		}
+	}
+
+	/**
+	 * Checks the constraints of a range of metadata entries, splitting it for parallel processing.
+	 */
+	private class ConstraintsCheck extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int MAX_SEQUENTIAL = 16;
+		private final List<Map.Entry<String, PropertyMD>> entries;
+		private final Violation[] problems;
+		private final int from;
+		private final int to;
+		private final boolean eagerOnly;
+
+		ConstraintsCheck(List<Map.Entry<String, PropertyMD>> entries, Violation[] problems, int from, int to,
+				boolean eagerOnly)
+		{
+			this.entries = entries;
+			this.problems = problems;
+			this.from = from;
+			this.to = to;
+			this.eagerOnly = eagerOnly;
+		}
+
+		@Override
+		protected void compute()
 		{
-			genericListeners.remove(listener);
-			for (String key: propertyFocusedListeners.keySet())
-				propertyFocusedListeners.get(key).remove(listener);
+			if (to - from <= MAX_SEQUENTIAL)
+			{
+				checkConstraints(entries, problems, from, to, eagerOnly);
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ConstraintsCheck(entries, problems, from, middle, eagerOnly), 
+					new ConstraintsCheck(entries, problems, middle, to, eagerOnly));
 		}
 	}
-	
-	/**
-	 * Checks if new properties are correct.
-	 * @param properties properties to be checked.
-	 */
-	protected void checkConstraints(Properties properties)
-	{
-		//tricky but short
-		new PropertiesHelper(prefix, properties, metadata, log);
-	}
 
 	/**
-	 * Logs all deprecated settings 
+	 * Checks which are performed when a configuration is loaded in the lazy validation mode: 
+	 * presence of the mandatory properties and all constraints of structured lists.
 	 */
-	protected void checkDeprecated(Properties toCheck)
+	private Violation checkEagerConstraints(PropertyMD meta, String key)
 	{
-		for (Map.Entry<String, PropertyMD> o : metadata.entrySet())
+		if (meta.isStructuredListEntry() || meta.getType() == Type.STRUCTURED_LIST)
+			return checkProperty(meta, key);
+		if (meta.isMandatory())
 		{
-			PropertyMD meta = o.getValue();
-			if (meta.isDeprecated() && toCheck.containsKey(prefix + o.getKey()))
-				log.warn("The setting " + getKeyDescription(o.getKey()) + 
-						" is deprecated and will be ignored. "
-						+ "Please remove it from configuration.");
+			boolean missing = meta.getType() == Type.LIST ? 
+					getSortedStringKeys(prefix+key, false).isEmpty() :
+					!meta.canHaveSubkeys() && !isSet(key);
+			if (missing)
+				return new Violation(prefix+key, Rule.MANDATORY, null, null, 
+						"The property " + getKeyDescription(key) + " is mandatory");
 		}
+		return null;
 	}
-	
+
 	/**
-	 * Checks if the properties set to this object are correct.
+	 * Checks constraints of a single property. The built in checks are performed without throwing 
+	 * exceptions, unless a subclass customizes them by overriding 
+	 * {@link #checkPropertyConstraints(PropertyMD, String)} or 
+	 * {@link #checkStructuredListConstraints(PropertyMD, String)}.
+	 * @return the problem found or null
 	 */
-	protected void checkConstraints()
+	private Violation checkProperty(PropertyMD meta, String key)
 	{
-		StringBuilder builder = new StringBuilder();
-		
-		for (Map.Entry<String, PropertyMD> o : metadata.entrySet())
+		if (!CUSTOM_PROPERTY_CHECKS.get(getClass()))
+			return getPropertyViolation(meta, key);
+		Set<String> checked = checkedByThread.get();
+		boolean added = checked.add(key);
+		try
 		{
-			PropertyMD meta = o.getValue();
-			try 
-			{
-				checkPropertyConstraints(meta, o.getKey());
-			} catch (ConfigurationException e)
-			{
-				builder.append(e.getMessage() + "\n");
-			}
+			checkPropertyConstraints(meta, key);
+			return null;
+		} catch (ConfigurationException e)
+		{
+			return new Violation(prefix+key, Rule.CUSTOM, null, null, e.getMessage());
+		} finally
+		{
+			if (added)
+				checked.remove(key);
 		}
-		String warns = builder.toString().trim();
-		if (warns.length() > 0)
-			throw new ConfigurationException("The following problems were found in the configuration:\n"
-					+ warns);
 	}
-	
+
 	protected void checkPropertyConstraints(PropertyMD meta, String key) throws ConfigurationException {
+		Violation violation = getPropertyViolation(meta, key);
+		if (violation != null)
+			throw new ConfigurationException(violation.getMessage());
+	}
+
+	/**
+	 * Implementation of the built in checks of {@link #checkPropertyConstraints(PropertyMD, String)}.
+	 * @return the first problem found or null 
+	 */
+	private Violation getPropertyViolation(PropertyMD meta, String key)
+	{
 		//we check structured members only when called specially in recursive way
 		if (meta.isStructuredListEntry() && !key.startsWith(meta.getStructuredListEntryId()))
-			return;
+			return null;
 		
 		if (meta.isMandatory() && !isSet(key) && !(meta.getType() == Type.LIST || 
 				meta.getType() == Type.STRUCTURED_LIST || meta.canHaveSubkeys())) 
-			throw new ConfigurationException("The property " + getKeyDescription(key) + 
-					" is mandatory");
+			return new Violation(prefix+key, Rule.MANDATORY, null, null, 
+					"The property " + getKeyDescription(key) + " is mandatory");
 		
-		String value = getValue(key);
+		String value = getValue(snapshot, key);
 		if (value == null && meta.getType() != Type.LIST && meta.getType() != Type.STRUCTURED_LIST)
-			return;
+			return null;
 		switch (meta.getType()) 
 		{
 		case PATH:
-			try
+			//prefetched attributes tell whether the value is a path, without canonicalizing it again 
+			FileStatus status = snapshot.getCachedFileStatus(value);
+			String invalidReason = status != null ? status.getInvalidPathReason() : null;
+			if (status == null)
 			{
-				new File(value).getCanonicalPath();
-			} catch (IOException e1)
-			{
-				throw new ConfigurationException("The property" + getKeyDescription(key) + 
-						" must be a filesystem path, but is not: " + e1.getMessage());
+				try
+				{
+					new File(value).getCanonicalPath();
+				} catch (IOException e1)
+				{
+					invalidReason = e1.getMessage();
+				}
 			}
-			break;
+			if (invalidReason != null)
+				return new Violation(prefix+key, Rule.PATH, value, null, "The property" + 
+						getKeyDescription(key) + " must be a filesystem path, but is not: " + invalidReason);
+			return null;
 		case INT:
-			getIntValue(key);
-			break;
+			return checkIntegerValue(meta, key, value, true);
 		case LONG:
-			getLongValue(key);
-			break;
+			return checkIntegerValue(meta, key, value, false);
 		case FLOAT:
-			
-			break;
+			return null;
 		case BOOLEAN:
-			getBooleanValue(key);
-			break;
+			if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("yes") || 
+					value.equalsIgnoreCase("false") || value.equalsIgnoreCase("no"))
+				return null;
+			return new Violation(prefix+key, Rule.ALLOWED_VALUES, value, "yes|true|no|false", 
+					"Value " + value + " is not allowed for " + getKeyDescription(key) + 
+					", must be one of yes|true|no|false");
 		case ENUM:
-			getEnumValue(key, meta.getEnumTypeInstance().getDeclaringClass());
-			break;
+			EnumLookup lookup = EnumLookup.of(meta.getEnumTypeInstance().getDeclaringClass());
+			if (lookup.find(value, meta.getEnumTypeInstance().getDeclaringClass()) != null)
+				return null;
+			return new Violation(prefix+key, Rule.ALLOWED_VALUES, value, lookup.getAllowedValues().trim(),
+					"Value " + value + " is not allowed for " + getKeyDescription(key) + 
+					", must be one of " + lookup.getAllowedValues());
 		case LIST:
 			Set<String> listKeys = getSortedStringKeys(prefix+key, false);
 			if (meta.isMandatory() && listKeys.size() == 0)
-				throw new ConfigurationException("The property " + getKeyDescription(key) + 
-						" is mandatory");
+				return new Violation(prefix+key, Rule.MANDATORY, null, null, 
+						"The property " + getKeyDescription(key) + " is mandatory");
 			if (meta.numericalListKeys())
 			{
 				int l = (prefix+key).length();
 				for (String k: listKeys)
 				{
-					try
-					{
-						Integer.parseInt(k.substring(l));
-					} catch (NumberFormatException e)
-					{
-						throw new ConfigurationException("For the " + prefix + key + 
-								" list property only the numerical subkeys are allowed, and " + k + " doesn't end with a numerical value.");
-					}
+					if (parseListKey(k.substring(l)) == NOT_A_NUMBER)
+						return new Violation(k, Rule.LIST_KEY, null, null, "For the " + prefix + key + 
+								" list property only the numerical subkeys are allowed, and " + k + 
+								" doesn't end with a numerical value.");
 				}
 			}
-			break;
+			return null;
 		case CLASS:
-			getClassValue(key, meta.getBaseClass());
+			return checkClassValue(key, value, meta.getBaseClass());
 		case STRING:
-			break;
+			return null;
 		case STRUCTURED_LIST:
-			checkStructuredListConstraints(meta, key);
-			break;
+			if (!CUSTOM_PROPERTY_CHECKS.get(getClass()))
+				return getStructuredListViolation(meta, key);
+			try
+			{
+				checkStructuredListConstraints(meta, key);
+				return null;
+			} catch (ConfigurationException e)
+			{
+				return new Violation(prefix+key, Rule.CUSTOM, null, null, e.getMessage());
+			}
 		}
+		return null;
 	}
 
-	protected void checkStructuredListConstraints(PropertyMD meta, String key) 
+	private Violation checkIntegerValue(PropertyMD meta, String key, String value, boolean intRange)
 	{
-		structuredPrefixes.add(key);
-		if (meta.numericalListKeys())
+		if (!isIntegerNumber(value, intRange))
+			return new Violation(prefix+key, Rule.TYPE, value, null, "Value " + value + 
+					" is not allowed for " + getKeyDescription(key) + ", must be an integer number");
+		long parsed = Long.parseLong(value);
+		if (parsed < meta.getMin())
+			return new Violation(prefix+key, Rule.MIN, value, String.valueOf(meta.getMin()), 
+					getKeyDescription(key) + " parameter value is too small, minimum is " + meta.getMin());
+		if (parsed > meta.getMax())
+			return new Violation(prefix+key, Rule.MAX, value, String.valueOf(meta.getMax()), 
+					getKeyDescription(key) + " parameter value is too big, maximum is " + meta.getMax());
+		return null;
+	}
+
+	/**
+	 * Class loading failures are inherently signaled with exceptions, however resolved classes are cached.
+	 */
+	private Violation checkClassValue(String key, String value, Class<?> desiredBase)
+	{
+		Object cached = snapshot.getCachedValue(Class.class, key);
+		Class<?> cls;
+		if (cached instanceof Class)
+		{
+			cls = (Class<?>) cached;
+		} else
 		{
-			Set<String> listKeys2 = getSortedStringKeys(prefix+key, true);
-			int l = (prefix+key).length();
-			for (String k: listKeys2)
+			try
 			{
-				k = k.substring(l);
-				try
-				{
-					Integer.parseInt(k);
-				} catch (NumberFormatException e)
-				{
-					throw new ConfigurationException("For the " + prefix + key + 
-						" structurd list property only the numerical subkeys are allowed, and " 
-							+ k + " isn't a numerical subkey.");
-				}
+				cls = Class.forName(value);
+			} catch (ClassNotFoundException e)
+			{
+				return new Violation(prefix+key, Rule.TYPE, value, null, "Value " + value + 
+						" is not allowed for " + getKeyDescription(key) + ", must be a class name");
 			}
 		}
+		if (!desiredBase.isAssignableFrom(cls))
+			return new Violation(prefix+key, Rule.ALLOWED_VALUES, value, desiredBase.getName(), 
+					"Value " + value + " is not allowed for " + getKeyDescription(key) + 
+					", must be class extending " + desiredBase);
+		return null;
+	}
+
+	/**
+	 * Checks if a value can be parsed with {@link Long#parseLong(String)} or, if intRange is set, with 
+	 * {@link Integer#parseInt(String)}, without using exceptions.
+	 */
+	private static boolean isIntegerNumber(String value, boolean intRange)
+	{
+		int len = value.length();
+		if (len == 0)
+			return false;
+		int i = 0;
+		long limit = intRange ? -Integer.MAX_VALUE : -Long.MAX_VALUE;
+		char first = value.charAt(0);
+		if (first == '-' || first == '+')
+		{
+			if (first == '-')
+				limit = intRange ? Integer.MIN_VALUE : Long.MIN_VALUE;
+			if (len == 1)
+				return false;
+			i++;
+		}
+		long multmin = limit / 10;
+		long result = 0;
+		for (; i<len; i++)
+		{
+			int digit = Character.digit(value.charAt(i), 10);
+			if (digit < 0 || result < multmin)
+				return false;
+			result *= 10;
+			if (result < limit + digit)
+				return false;
+			result -= digit;
+		}
+		return true;
+	}
+
+	protected void checkStructuredListConstraints(PropertyMD meta, String key) 
+	{
+		Violation violation = getStructuredListViolation(meta, key);
+		if (violation != null)
+			throw new ConfigurationException(violation.getMessage());
+	}
+
+	/**
+	 * Properties of the list are grouped by elements in a single sweep over the sorted list properties, 
+	 * then each element is checked.
+	 * @return the first problem found or null 
+	 */
+	private Violation getStructuredListViolation(PropertyMD meta, String key) 
+	{
+		String listPrefix = prefix+key;
+		int l = listPrefix.length();
+		Set<String> elementIds = new TreeSet<>();
+		Map<String, List<String>> elementProperties = new HashMap<>();
+		for (String property: snapshot.getPropertiesWithPrefix(listPrefix).keySet())
+		{
+			int dot = property.indexOf('.', l);
+			String elementId = dot == -1 ? property.substring(l) : property.substring(l, dot);
+			elementIds.add(elementId);
+			if (dot != -1)
+				elementProperties.computeIfAbsent(key + elementId + '.', k -> new ArrayList<>())
+					.add(property);
+		}
 		
-		Set<String> mandatoryElements = new HashSet<>();
-		for (Map.Entry<String, PropertyMD> o : metadata.entrySet())
+		if (meta.numericalListKeys())
 		{
-			PropertyMD m = o.getValue();
-			if (m.isStructuredListEntry() && key.equals(m.getStructuredListEntryId()) && m.isMandatory())
-				mandatoryElements.add(o.getKey());
+			for (String elementId: elementIds)
+			{
+				Violation ret = checkStructuredListElementId(meta, key, elementId);
+				if (ret != null)
+					return ret;
+			}
 		}
 		
+		Set<String> mandatoryElements = metadataIndex.getMandatoryMembers(key);
+		
 		Set<String> elements = getStructuredListKeys(key);
 		if (meta.isMandatory() && elements.size() == 0)
-			throw new ConfigurationException("The list " + getKeyDescription(key) + 
-					" must have elements");
+			return new Violation(prefix+key, Rule.MANDATORY, null, null, 
+					"The list " + getKeyDescription(key) + " must have elements");
 		for (String element: elements)
 		{
-			Set<String> presentMandatory = new HashSet<>();
-			PropertyGroupHelper helper = new PropertyGroupHelper(properties, prefix+element);
-			Iterator<String> keys = helper.keys();
-			while(keys.hasNext())
-			{
-				String entryKey = keys.next();
-				entryKey = entryKey.substring(prefix.length());
-				PropertyMD eMeta = getMetadata(entryKey);
-				if (eMeta != null)
-				{
-					String realKey = getMetadataKey(entryKey);
-					if (eMeta.getType() == Type.LIST && entryKey.endsWith(realKey))
-						throw new ConfigurationException("The entry with key " + 
-								prefix+entryKey + " is illegal, should have a subkey");
-					if ((eMeta.canHaveSubkeys() && !entryKey.endsWith(realKey)) 
-							|| eMeta.getType() == Type.LIST)
-						entryKey = entryKey.substring(0, entryKey.indexOf(realKey))+realKey;
-					checkPropertyConstraints(eMeta, entryKey);
-					if (eMeta.isMandatory())
-						presentMandatory.add(realKey);
-				}
-			}
-			if (!mandatoryElements.equals(presentMandatory))
+			List<String> members = elementProperties.getOrDefault(element, Collections.emptyList());
+			Violation ret = checkStructuredListElement(element, members.iterator(), mandatoryElements);
+			if (ret != null)
+				return ret;
+		}
+		return null;
+	}
+
+	private Violation checkStructuredListElementId(PropertyMD meta, String key, String elementId)
+	{
+		if (meta.numericalListKeys() && parseListKey(elementId) == NOT_A_NUMBER)
+			return new Violation(prefix+key+elementId, Rule.LIST_KEY, null, null, "For the " + prefix + key + 
+				" structurd list property only the numerical subkeys are allowed, and " 
+					+ elementId + " isn't a numerical subkey.");
+		return null;
+	}
+
+	/**
+	 * Checks all properties of a single structured list element.
+	 * @param element the element key, as returned by {@link #getStructuredListKeys(String)}
+	 * @param keys all properties of the element (with prefix)
+	 * @param mandatoryElements metadata keys of the mandatory list members
+	 * @return the first problem found or null
+	 */
+	private Violation checkStructuredListElement(String element, Iterator<String> keys, 
+			Set<String> mandatoryElements)
+	{
+		Set<String> presentMandatory = new HashSet<>();
+		while(keys.hasNext())
+		{
+			String entryKey = keys.next();
+			entryKey = entryKey.substring(prefix.length());
+			//element members are resolved once per check, so not cached
+			String realKey = metadataIndex.findMetadataKey(entryKey);
+			PropertyMD eMeta = realKey == null ? null : metadata.get(realKey);
+			if (eMeta != null)
 			{
-				mandatoryElements.removeAll(presentMandatory);
-				throw new ConfigurationException("The following properties must be defined for the list entry with key " 
-						+ element + ": " + mandatoryElements);
+				if (eMeta.getType() == Type.LIST && entryKey.endsWith(realKey))
+					return new Violation(prefix+entryKey, Rule.STRUCTURE, null, null, "The entry with key " + 
+							prefix+entryKey + " is illegal, should have a subkey");
+				if ((eMeta.canHaveSubkeys() && !entryKey.endsWith(realKey)) 
+						|| eMeta.getType() == Type.LIST)
+					entryKey = entryKey.substring(0, entryKey.indexOf(realKey))+realKey;
+				Violation ret = checkProperty(eMeta, entryKey);
+				if (ret != null)
+					return ret;
+				if (eMeta.isMandatory())
+					presentMandatory.add(realKey);
 			}
 		}
+		if (!mandatoryElements.equals(presentMandatory))
+		{
+			Set<String> missing = new HashSet<>(mandatoryElements);
+			missing.removeAll(presentMandatory);
+			return new Violation(prefix+element, Rule.MANDATORY, null, null, 
+					"The following properties must be defined for the list entry with key " 
+					+ element + ": " + missing);
+		}
+		return null;
 	}
 	
 	
 	protected void findUnknown(Properties properties)
 	{
-		Set<Object> keys = properties.keySet();
-		StringBuilder sb = new StringBuilder();
-		for (Object keyO: keys)
+		ValidationResult result = new ValidationResult();
+		findUnknown(properties, result);
+		result.throwIfInvalid();
+	}
+
+	private void findUnknown(Properties properties, ValidationResult result)
+	{
+		for (Object keyO: properties.keySet())
 		{
 			String key = (String) keyO;
-			if (key.startsWith(prefix))
-			{
-				String noPfxKey = key.substring(prefix.length());
-				if (getMetadata(noPfxKey) != null)
-					continue;
-				//let's also try if we have metadata for some subnamespaces, marked as list or with subkeys.
-				boolean done = false;
-				while (noPfxKey.contains(".")) {
-					//case 1: ordinary entry with subkeys allowed or list type
-					noPfxKey = noPfxKey.substring(0, noPfxKey.lastIndexOf('.'));
-					PropertyMD md = getMetadata(noPfxKey); 
-					if (md != null) {
-						if (!md.canHaveSubkeys() && md.getType() != Type.LIST) {
-							sb.append(" ").append(key);
-						}
-						done = true;
-						break;
-					} else
-					{
-						//case 2: we can also have a structured list marked as subkeys allowed
-						PropertyMD md2 = getMetadata(noPfxKey+".");
-						if (md2 != null && md2.getType() == Type.STRUCTURED_LIST && 
-								md2.canHaveSubkeys())
-						{
-							done = true;
-							break;
-						}
-					}
-				}
-				if (!done)
-					sb.append(" ").append(key);
-			}
+			if (key.startsWith(prefix) && !metadataIndex.isKnown(key.substring(prefix.length())))
+				result.add(new Violation(key, Rule.UNKNOWN, properties.getProperty(key), null, 
+						"The property " + key + " is not known"));
 		}
-		if (sb.length() > 0)
-			throw new ConfigurationException("The following properties are not known:" + sb.toString() + 
-					". Remove them or use correct property names if there are mistakes.");
 	}
 	
 	/**
 	 * For regular entries returns the argument. For entries where propertyKey is something from a list 
 	 * or entry with subkeys, the real entry key is returned. Similarly for the structured list - the structured
-	 * list entry is returned. 
+	 * list entry is returned. If more than one entry matches, the one with the longest key is used.
 	 */
 	protected String getMetadataKey(String propertyKey)
 	{
-		if (metadata.containsKey(propertyKey))
-			return propertyKey;
-		
-		String realKey = propertyKey;
-		for (String structuredPrefix: structuredPrefixes)
-		{
-			if (propertyKey.startsWith(structuredPrefix))
-			{
-				realKey = propertyKey.substring(structuredPrefix.length());
-				int dot = realKey.indexOf('.');
-				realKey = realKey.substring(dot+1);
-				PropertyMD md = metadata.get(realKey);
-				if (md != null)
-					return realKey;
-				break; //maybe this is a list or something with subkeys, in the structured list
-			}
-		}
-		
-		Set<Entry<String, PropertyMD>> entries = metadata.entrySet();
-		for (Entry<String, PropertyMD> entry: entries)
-		{
-			if (realKey.startsWith(entry.getKey()) && 
-					(entry.getValue().getType() == Type.LIST || entry.getValue().canHaveSubkeys()))
-				return entry.getKey();
-		}
-		return null;
-		
+		return metadataIndex.getMetadataKey(propertyKey);
 	}
 	
 	protected PropertyMD getMetadata(String key)
@@ -598,16 +1443,32 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	@Override
 	public String getValue(String name)
 	{
-		String val;
-		synchronized(this)
-		{
-			val = properties.getProperty(prefix + name);
-		}
-		boolean doLog = (!warned.contains(name));
+		PropertiesSnapshot current = snapshot;
+		checkOnFirstUse(current, name);
+		return getValue(current, name);
+	}
+
+	/**
+	 * As {@link #getValue(String)} but never checks the property constraints (in the lazy validation mode).
+	 */
+	private String getValue(PropertiesSnapshot current, String name)
+	{
+		return getValue(current, name, prefix + name, null);
+	}
+
+	/**
+	 * @param key the property key with prefix
+	 * @param meta metadata of the property if already resolved, otherwise it is resolved when needed
+	 */
+	private String getValue(PropertiesSnapshot current, String name, String key, PropertyMD meta)
+	{
+		String val = current.getProperty(key);
+		boolean doLog = logValues && !warned.contains(name);
 		
 		if (val == null) 
 		{
-			PropertyMD meta = getMetadata(name);
+			if (meta == null)
+				meta = getMetadata(name);
 			boolean hasDefault = meta != null ? meta.hasDefault() : false;
 			if (hasDefault)
 			{
@@ -631,7 +1492,11 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 
 	protected Long getLongValueNoCheck(String name) throws ConfigurationException
 	{
-		String val = getValue(name);
+		return parseLong(name, getValue(name));
+	}
+
+	private Long parseLong(String name, String val) throws ConfigurationException
+	{
 		if (val == null)
 			return null;
 		try
@@ -646,7 +1511,11 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 
 	protected Integer getIntValueNoCheck(String name) throws ConfigurationException
 	{
-		String val = getValue(name);
+		return parseInt(name, getValue(name));
+	}
+
+	private Integer parseInt(String name, String val) throws ConfigurationException
+	{
 		if (val == null)
 			return null;
 		try
@@ -661,7 +1530,11 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 
 	protected Double getDoubleValueNoCheck(String name) throws ConfigurationException
 	{
-		String val = getValue(name);
+		return parseDouble(name, getValue(name));
+	}
+
+	private Double parseDouble(String name, String val) throws ConfigurationException
+	{
 		if (val == null)
 			return null;
 		try
@@ -678,8 +1551,12 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	{
 		if (current == null)
 			return current;
-		PropertyMD meta = getMetadata(name);
-		if (meta == null)
+		return checkBounds(name, getMetadata(name), current);
+	}
+
+	private <T extends Number> T checkBounds(String name, PropertyMD meta, T current) throws ConfigurationException
+	{
+		if (current == null || meta == null)
 			return current;
 		if (current instanceof Float || current instanceof Double)
 		{
@@ -709,31 +1586,89 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 		return current;
 	}
 	
+	/**
+	 * Stores a successfully parsed and checked value in the snapshot's cache, unless 
+	 * the snapshot was replaced in the meantime.
+	 */
+	private void cacheValue(PropertiesSnapshot used, Class<?> type, String name, Object value)
+	{
+		if (isCacheable(used, name))
+			used.cacheValue(type, name, value);
+	}
+
+	/**
+	 * @return whether a value of the property read from the given snapshot can be cached in it: the snapshot 
+	 * is still current and the value was not read by a custom check of the property itself, 
+	 * i.e. before it was checked in the lazy validation mode.
+	 */
+	boolean isCacheable(PropertiesSnapshot used, String name)
+	{
+		return snapshot == used && (used.getUnvalidated() == null || !checkedByThread.get().contains(name));
+	}
+	
 	@Override
 	public Long getLongValue(String name) throws ConfigurationException
 	{
-		Long retVal = getLongValueNoCheck(name);
-		return checkBounds(name, retVal);
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(Long.class, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null)
+			return (Long) cached;
+		Long retVal = checkBounds(name, getLongValueNoCheck(name));
+		cacheValue(current, Long.class, name, retVal);
+		return retVal;
 	}	
 	
 	@Override
 	public Integer getIntValue(String name) throws ConfigurationException
 	{
-		Integer retVal = getIntValueNoCheck(name);
-		return checkBounds(name, retVal);
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(Integer.class, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null)
+			return (Integer) cached;
+		Integer retVal = checkBounds(name, getIntValueNoCheck(name));
+		cacheValue(current, Integer.class, name, retVal);
+		return retVal;
 	}
 
 	@Override
 	public Double getDoubleValue(String name) throws ConfigurationException
 	{
-		Double retVal = getDoubleValueNoCheck(name);
-		return checkBounds(name, retVal);
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(Double.class, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null)
+			return (Double) cached;
+		Double retVal = checkBounds(name, getDoubleValueNoCheck(name));
+		cacheValue(current, Double.class, name, retVal);
+		return retVal;
 	}
 
 	@Override
 	public Boolean getBooleanValue(String name) throws ConfigurationException
 	{
-		String val = getValue(name);
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(Boolean.class, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null)
+			return (Boolean) cached;
+		Boolean retVal = getBooleanValueNoCache(name);
+		cacheValue(current, Boolean.class, name, retVal);
+		return retVal;
+	}
+
+	private Boolean getBooleanValueNoCache(String name) throws ConfigurationException
+	{
+		return parseBoolean(name, getValue(name));
+	}
+
+	private Boolean parseBoolean(String name, String val) throws ConfigurationException
+	{
 		if (val == null)
 			return null;
         	if (val.equalsIgnoreCase("true") || val.equalsIgnoreCase("yes"))
@@ -744,9 +1679,84 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 				+ getKeyDescription(name) + ", must be one of yes|true|no|false");
 	}
 
+	@Override
+	public int getInt(String name, int fallback) throws ConfigurationException
+	{
+		PrimitiveValues values = snapshot.getPrimitiveValues();
+		int column = values == null ? -1 : metadataIndex.getColumn(Type.INT, name);
+		if (column >= 0 && values.intStates[column] != PrimitiveValues.UNKNOWN)
+			return values.intStates[column] == PrimitiveValues.SET ? values.ints[column] : fallback;
+		return PropertiesHelperAPI.super.getInt(name, fallback);
+	}
+
+	@Override
+	public long getLong(String name, long fallback) throws ConfigurationException
+	{
+		PrimitiveValues values = snapshot.getPrimitiveValues();
+		int column = values == null ? -1 : metadataIndex.getColumn(Type.LONG, name);
+		if (column >= 0 && values.longStates[column] != PrimitiveValues.UNKNOWN)
+			return values.longStates[column] == PrimitiveValues.SET ? values.longs[column] : fallback;
+		return PropertiesHelperAPI.super.getLong(name, fallback);
+	}
+
+	@Override
+	public double getDouble(String name, double fallback) throws ConfigurationException
+	{
+		PrimitiveValues values = snapshot.getPrimitiveValues();
+		int column = values == null ? -1 : metadataIndex.getColumn(Type.FLOAT, name);
+		if (column >= 0 && values.doubleStates[column] != PrimitiveValues.UNKNOWN)
+			return values.doubleStates[column] == PrimitiveValues.SET ? values.doubles[column] : fallback;
+		return PropertiesHelperAPI.super.getDouble(name, fallback);
+	}
+
+	@Override
+	public boolean getBoolean(String name, boolean fallback) throws ConfigurationException
+	{
+		PrimitiveValues values = snapshot.getPrimitiveValues();
+		int column = values == null ? -1 : metadataIndex.getColumn(Type.BOOLEAN, name);
+		if (column >= 0 && values.booleanStates[column] != PrimitiveValues.UNKNOWN)
+			return values.booleanStates[column] == PrimitiveValues.SET ? values.booleans.get(column) : fallback;
+		return PropertiesHelperAPI.super.getBoolean(name, fallback);
+	}
+
+	/**
+	 * Resolved classes are cached until the configuration is updated. 
+	 */
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> Class<? extends T> getClassValue(String name, Class<T> desiredBase) throws ConfigurationException
+	{
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(Class.class, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null && desiredBase.isAssignableFrom((Class<?>) cached))
+			return (Class<? extends T>) cached;
+		Class<? extends T> retVal = getClassValueNoCache(name, desiredBase);
+		cacheValue(current, Class.class, name, retVal);
+		return retVal;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> Supplier<T> getInstanceFactory(String name, Class<T> desiredBase) throws ConfigurationException
+	{
+		PropertiesSnapshot current = snapshot;
+		InstanceFactory factory = current.getCachedInstanceFactory(name);
+		if (factory == null || !desiredBase.isAssignableFrom(factory.getType()))
+		{
+			Class<? extends T> cls = getClassValue(name, desiredBase);
+			if (cls == null)
+				return null;
+			factory = InstanceFactory.of(cls, this, name);
+			if (snapshot == current)
+				current.cacheInstanceFactory(name, factory);
+		}
+		return (Supplier<T>) factory;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Class<? extends T> getClassValueNoCache(String name, Class<T> desiredBase) throws ConfigurationException
 	{
 		String val = getValue(name);
 		if (val == null)
@@ -774,19 +1784,32 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	@Override
 	public <T extends Enum<T>> T getEnumValue(String name, Class<T> type) throws ConfigurationException
 	{
-		String val = getValue(name);
+		PropertiesSnapshot current = snapshot;
+		Object cached = current.getCachedValue(type, name);
+		if (cached == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (cached != null)
+			return type.cast(cached);
+		T retVal = getEnumValueNoCache(name, type);
+		cacheValue(current, type, name, retVal);
+		return retVal;
+	}
+
+	private <T extends Enum<T>> T getEnumValueNoCache(String name, Class<T> type) throws ConfigurationException
+	{
+		return parseEnum(name, getValue(name), type);
+	}
+
+	private <T extends Enum<T>> T parseEnum(String name, String val, Class<T> type) throws ConfigurationException
+	{
 		if (val == null)
 			return null;
-		T[] constants = type.getEnumConstants();
-		StringBuilder allowed = new StringBuilder();
-		for (T label: constants) 
-		{
-			if (val.equalsIgnoreCase(label.name()))
-				return label;
-			allowed.append(label.name() + " ");
-		}
+		EnumLookup lookup = EnumLookup.of(type);
+		T ret = lookup.find(val, type);
+		if (ret != null)
+			return ret;
 		throw new ConfigurationException("Value " + val + " is not allowed for "
-				+ getKeyDescription(name) + ", must be one of " + allowed);
+				+ getKeyDescription(name) + ", must be one of " + lookup.getAllowedValues());
 	}
 	
 	/**
@@ -804,7 +1827,8 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	}
 	/**
 	 * Returns a property value interpreted as a {@link File}. 
-	 * The file must exist and must be readable.
+	 * The file must exist and must be readable. The filesystem attributes of the file are
+	 * cached if {@link PropertiesHelperOptions#setFileAttributesCacheTTL(long)} was set. 
 	 * @param isDirectory whether the File must be a directory (true) or a plain file (false)
 	 */
 	@Override
@@ -815,21 +1839,38 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 		if (val == null)
 			return null;
 			
-		File f = new File(val);
+		FileStatus status = getFileStatus(val);
 		
-		if (!f.exists() || !f.canRead())
+		if (!status.exists() || !status.isReadable())
 			throw new ConfigurationException("The value of "
 					+ getKeyDescription(name) + "= '" + val + 
 					"', must represent an EXISTING and READABLE filesystem path.");
-		if (!f.isDirectory() && isDirectory)
+		if (!status.isDirectory() && isDirectory)
 			throw new ConfigurationException("Value of "
 					+ getKeyDescription(name) + "= '" + val +
 					"', must be a path of a directory, not a file.");
-		if (!f.isFile() && !isDirectory)
+		if (!status.isRegularFile() && !isDirectory)
 			throw new ConfigurationException("Value of "
 					+ getKeyDescription(name) + "= '" + val +
 					"', must be a path of an ordinary file.");
-		return f;
+		return new File(val);
+	}
+
+	/**
+	 * @return filesystem attributes of the path, cached in the current snapshot if configured so.
+	 */
+	private FileStatus getFileStatus(String path)
+	{
+		long ttl = options.getFileAttributesCacheTTL();
+		if (ttl == 0)
+			return FileStatus.read(path);
+		PropertiesSnapshot current = snapshot;
+		FileStatus cached = current.getCachedFileStatus(path);
+		if (cached != null && !cached.isOlderThan(ttl))
+			return cached;
+		FileStatus fresh = FileStatus.read(path);
+		current.cacheFileStatus(path, fresh);
+		return fresh;
 	}
 
 	/**
@@ -943,52 +1984,59 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	 * <p>
 	 * property metadata defines whether list sub keys should be restricted to numerical values only.
 	 * If so list keys are sorted as numbers and keys which are not numbers are skipped with warning.  
+	 * <p>
+	 * The returned list is immutable and the same list is returned until the configuration is updated.
 	 * @param prefix2 the prefix to be used.
 	 */
 	@Override
-	public synchronized List<String> getListOfValues(String prefix2)
+	public List<String> getListOfValues(String prefix2)
 	{
+		PropertiesSnapshot current = snapshot;
+		checkOnFirstUse(current, prefix2);
+		List<String> cached = current.getCachedList(prefix2);
+		if (cached != null)
+			return cached;
 		String base = prefix + prefix2;
 		PropertyMD meta = metadata.get(prefix2);
 		boolean numericalKeys = meta == null ? false : meta.numericalListKeys();
-		Set<String> keys = numericalKeys ? getSortedNumKeys(base, false) : getSortedStringKeys(base, false);
+		Set<String> keys = numericalKeys ? getSortedNumKeys(current, base, false) : 
+			getSortedStringKeys(current, base, false);
 		
 		List<String> ret = new ArrayList<String>();
 		for (Object keyO: keys)
 		{
 			String key = keyO.toString();
-			String v = properties.getProperty(key);
-			if (!warned.contains(key))
+			String v = current.getProperty(key);
+			if (logValues && !warned.contains(key))
 				logValue(key.substring(prefix.length()), v);
 			ret.add(v);
 		}
+		ret = Collections.unmodifiableList(ret);
+		current.cacheList(prefix2, ret);
 		return ret;
 	}
 	
-	protected synchronized Set<String> getSortedNumKeys(String base, boolean allowListSubKeys)
+	protected Set<String> getSortedNumKeys(String base, boolean allowListSubKeys)
+	{
+		return getSortedNumKeys(snapshot, base, allowListSubKeys);
+	}
+
+	private Set<String> getSortedNumKeys(PropertiesSnapshot current, String base, boolean allowListSubKeys)
 	{
 		SortedSet<Integer> keys = new TreeSet<Integer>();
-		Set<Object> allKeys = properties.keySet();
-		for (Object keyO: allKeys)
+		for (String key: current.getPropertiesWithPrefix(base).keySet())
 		{
-			String key = (String) keyO;
-			if (key.startsWith(base))
-			{
-				String post = key.substring(base.length());
-				int dot = post.indexOf('.');
-				if (dot != -1 && allowListSubKeys)
-					post = post.substring(0, dot);
-				try
-				{
-					int i = Integer.parseInt(post);
-					keys.add(i);
-				} catch (NumberFormatException e)
-				{
-					log.warn("Property list key '" + key + 
-						"' should end with integer number, but is ended with '" +
-						post + "'. Ignoring.");
-				}
-			}
+			String post = key.substring(base.length());
+			int dot = post.indexOf('.');
+			if (dot != -1 && allowListSubKeys)
+				post = post.substring(0, dot);
+			long i = parseListKey(post);
+			if (i != NOT_A_NUMBER)
+				keys.add((int) i);
+			else
+				log.warn("Property list key '" + key + 
+					"' should end with integer number, but is ended with '" +
+					post + "'. Ignoring.");
 		}
 		
 		Set<String> ret = new LinkedHashSet<String>(keys.size());
@@ -998,45 +2046,84 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 		return ret;
 	}
 
-	protected synchronized Set<String> getSortedStringKeys(String base, boolean allowListSubKeys)
+	protected Set<String> getSortedStringKeys(String base, boolean allowListSubKeys)
+	{
+		return getSortedStringKeys(snapshot, base, allowListSubKeys);
+	}
+
+	private Set<String> getSortedStringKeys(PropertiesSnapshot current, String base, boolean allowListSubKeys)
 	{
 		SortedSet<String> keys = new TreeSet<String>();
-		Set<Object> allKeys = properties.keySet();
-		for (Object keyO: allKeys)
+		for (String key: current.getPropertiesWithPrefix(base).keySet())
 		{
-			String key = (String) keyO;
-			if (key.startsWith(base))
+			String post = key.substring(base.length());
+			int dot = post.indexOf('.');
+			if (dot != -1 && allowListSubKeys)
+				post = post.substring(0, dot);
+			else if (dot != -1 && !allowListSubKeys)
 			{
-				String post = key.substring(base.length());
-				int dot = post.indexOf('.');
-				if (dot != -1 && allowListSubKeys)
-					post = post.substring(0, dot);
-				else if (dot != -1 && !allowListSubKeys)
-				{
-					log.warn("Property list key '" + key + 
-							"' should not posses a dot: '" +
-							post + "'. Ignoring.");
-					continue;
-				}
-					
-				keys.add(base+post);
+				log.warn("Property list key '" + key + 
+						"' should not posses a dot: '" +
+						post + "'. Ignoring.");
+				continue;
 			}
+				
+			keys.add(base+post);
 		}
 		return keys;
 	}
+
+	/**
+	 * Parses a list key in the same way as {@link Integer#parseInt(String)}, but without
+	 * using exceptions for signaling invalid input.
+	 * @return the parsed key or {@link #NOT_A_NUMBER} 
+	 */
+	private static long parseListKey(String key)
+	{
+		int len = key.length();
+		if (len == 0)
+			return NOT_A_NUMBER;
+		int i = 0;
+		boolean negative = false;
+		char first = key.charAt(0);
+		if (first == '-' || first == '+')
+		{
+			negative = first == '-';
+			i++;
+			if (len == 1)
+				return NOT_A_NUMBER;
+		}
+		long ret = 0;
+		for (; i<len; i++)
+		{
+			int digit = Character.digit(key.charAt(i), 10);
+			if (digit < 0)
+				return NOT_A_NUMBER;
+			ret = ret*10 + digit;
+			if (ret > (long)Integer.MAX_VALUE + 1)
+				return NOT_A_NUMBER;
+		}
+		ret = negative ? -ret : ret;
+		return ret > Integer.MAX_VALUE ? NOT_A_NUMBER : ret;
+	}
 	
 	/**
 	 * @return list of keys defined for the structured list. The returned keys can be iterated and
 	 * glued with an actual interesting parameter which is a member of this structured list.
+	 * The returned set is immutable and the same set is returned until the configuration is updated.
 	 */
 	@Override
-	public synchronized Set<String> getStructuredListKeys(String listKey)
+	public Set<String> getStructuredListKeys(String listKey)
 	{
 		PropertyMD listMeta = metadata.get(listKey);
 		if (listMeta == null || listMeta.getType() != PropertyMD.Type.STRUCTURED_LIST)
 			throw new IllegalArgumentException("The " + listKey + " is not a structured list property");
-		Set<String> keys = listMeta.numericalListKeys() ? getSortedNumKeys(prefix+listKey, true) : 
-			getSortedStringKeys(prefix+listKey, true);
+		PropertiesSnapshot current = snapshot;
+		Set<String> cached = current.getCachedStructuredListKeys(listKey);
+		if (cached != null)
+			return cached;
+		Set<String> keys = listMeta.numericalListKeys() ? getSortedNumKeys(current, prefix+listKey, true) : 
+			getSortedStringKeys(current, prefix+listKey, true);
 		Set<String> ret = new LinkedHashSet<String>();
 		int prefixLen = prefix.length();
 		for (String key: keys)
@@ -1044,6 +2131,8 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 			key = key.substring(prefixLen);
 			ret.add(key+'.');
 		}
+		ret = Collections.unmodifiableSet(ret);
+		current.cacheStructuredListKeys(listKey, ret);
 		return ret;
 	}
 	
@@ -1063,9 +2152,9 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	}
 	
 	@Override
-	public synchronized boolean isSet(String name)
+	public boolean isSet(String name)
 	{
-		return properties.containsKey(prefix+name);
+		return snapshot.containsKey(prefix+name);
 	}
 	
 	/**
@@ -1073,9 +2162,9 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 	 * @return value of a raw property, i.e. without any metadata checking, usage of prefix etc.
 	 */
 	@Override
-	public synchronized String getRawProperty(String key)
+	public String getRawProperty(String key)
 	{
-		return properties.getProperty(key);
+		return snapshot.getProperty(key);
 	}
 	
 	/**
@@ -1096,8 +2185,7 @@ public class PropertiesHelper implements Cloneable, UpdateableConfiguration, Pro
 
 	protected void cloneTo(PropertiesHelper to)
 	{
-		to.genericListeners.addAll(this.genericListeners);
-		to.propertyFocusedListeners.putAll(this.propertyFocusedListeners);
+		to.listeners.addAll(this.listeners);
 	}
 }
 
@@ -9,6 +9,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Interface of {@link PropertiesHelper} class. Useful sometimes, when lack of multiinheritance 
@@ -41,9 +42,63 @@ public interface PropertiesHelperAPI
 
 	Boolean getBooleanValue(String name) throws ConfigurationException;
 
+	/**
+	 * Primitive version of {@link #getIntValue(String)}. {@link PropertiesHelper} implements it without boxing.
+	 * @param fallback returned when the property is not set and has no default value
+	 */
+	default int getInt(String name, int fallback) throws ConfigurationException
+	{
+		Integer value = getIntValue(name);
+		return value == null ? fallback : value;
+	}
+
+	/**
+	 * Primitive version of {@link #getLongValue(String)}. {@link PropertiesHelper} implements it without boxing.
+	 * @param fallback returned when the property is not set and has no default value
+	 */
+	default long getLong(String name, long fallback) throws ConfigurationException
+	{
+		Long value = getLongValue(name);
+		return value == null ? fallback : value;
+	}
+
+	/**
+	 * Primitive version of {@link #getDoubleValue(String)}. {@link PropertiesHelper} implements it without boxing.
+	 * @param fallback returned when the property is not set and has no default value
+	 */
+	default double getDouble(String name, double fallback) throws ConfigurationException
+	{
+		Double value = getDoubleValue(name);
+		return value == null ? fallback : value;
+	}
+
+	/**
+	 * Primitive version of {@link #getBooleanValue(String)}. {@link PropertiesHelper} implements it without boxing.
+	 * @param fallback returned when the property is not set and has no default value
+	 */
+	default boolean getBoolean(String name, boolean fallback) throws ConfigurationException
+	{
+		Boolean value = getBooleanValue(name);
+		return value == null ? fallback : value;
+	}
+
 	<T> Class<? extends T> getClassValue(String name, Class<T> desiredBase)
 			throws ConfigurationException;
 
+	/**
+	 * Returns a factory of instances of the class set as the value of a CLASS property.
+	 * The class must have a public no-argument constructor. {@link PropertiesHelper} caches the factory 
+	 * until the configuration is updated, so it is cheap to call this method frequently.
+	 * @return the factory or null if the property is not set
+	 */
+	@SuppressWarnings("unchecked")
+	default <T> Supplier<T> getInstanceFactory(String name, Class<T> desiredBase)
+			throws ConfigurationException
+	{
+		Class<? extends T> cls = getClassValue(name, desiredBase);
+		return cls == null ? null : (Supplier<T>) InstanceFactory.of(cls, this, name);
+	}
+
 	/**
 	 * Returns the value of name key as a provided enum class instance. Important: mapping of string
 	 * value to enum label is done in case insensitive way. Therefore if your enum constants differ
@@ -123,6 +178,8 @@ public interface PropertiesHelperAPI
 	 * <p>
 	 * property metadata defines whether list sub keys should be restricted to numerical values only.
 	 * If so list keys are sorted as numbers and keys which are not numbers are skipped with warning.  
+	 * <p>
+	 * The returned list is immutable and the same list is returned until the configuration is updated.
 	 * @param prefix2 the prefix to be used.
 	 */
 	List<String> getListOfValues(String prefix2);
@@ -130,6 +187,7 @@ public interface PropertiesHelperAPI
 	/**
 	 * @return list of keys defined for the structured list. The returned keys can be iterated and
 	 * glued with an actual interesting parameter which is a member of this structured list.
+	 * The returned set is immutable and the same set is returned until the configuration is updated.
 	 */
 	Set<String> getStructuredListKeys(String listKey);
 
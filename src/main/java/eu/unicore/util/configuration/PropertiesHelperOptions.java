@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Optional settings of a {@link PropertiesHelper}, controlling its behavior which is not related to
+ * a particular property. The defaults are used when a helper is created without options.
+ * Uses the fluent style. The helper makes a private copy of the options, so changes
+ * of the options object after the helper was created have no effect.
+ */
+public class PropertiesHelperOptions implements Cloneable
+{
+	private long fileAttributesCacheTTL = 0;
+	private boolean pathsPrefetched = false;
+	private ForkJoinPool validationPool;
+	private int parallelValidationThreshold = 1000;
+	private boolean lazyValidation = false;
+	private boolean asynchronousListeners = false;
+	private Executor listenerExecutor;
+
+	/**
+	 * @return for how long (in ms) the filesystem attributes of files returned by
+	 * {@link PropertiesHelper#getFileValue(String, boolean)} are cached. 0 means no caching.
+	 */
+	public long getFileAttributesCacheTTL()
+	{
+		return fileAttributesCacheTTL;
+	}
+
+	/**
+	 * Sets for how long (in ms) the filesystem attributes of files returned by
+	 * {@link PropertiesHelper#getFileValue(String, boolean)} are cached. By default caching is turned off.
+	 * The cache is always dropped when the configuration is updated.
+	 */
+	public PropertiesHelperOptions setFileAttributesCacheTTL(long fileAttributesCacheTTL)
+	{
+		if (fileAttributesCacheTTL < 0)
+			throw new IllegalArgumentException("TTL must not be negative");
+		this.fileAttributesCacheTTL = fileAttributesCacheTTL;
+		return this;
+	}
+
+	public boolean isPathsPrefetched()
+	{
+		return pathsPrefetched;
+	}
+
+	/**
+	 * If set, then the filesystem attributes of all set PATH properties are read in bulk with NIO, 
+	 * when a configuration is validated, before it is installed. The attributes are used to check
+	 * that the values are filesystem paths and with a positive {@link #setFileAttributesCacheTTL(long)}
+	 * they also populate the cache of the installed configuration.
+	 */
+	public PropertiesHelperOptions setPathsPrefetched(boolean pathsPrefetched)
+	{
+		this.pathsPrefetched = pathsPrefetched;
+		return this;
+	}
+
+	/**
+	 * @return the pool used to check constraints in parallel or null if constraints are checked 
+	 * sequentially.
+	 */
+	public ForkJoinPool getValidationPool()
+	{
+		return validationPool;
+	}
+
+	/**
+	 * Sets a pool which is used to check the constraints of properties in parallel. 
+	 * Problems are reported in the same way and order as with sequential checking.
+	 * By default (null) constraints are checked sequentially, by the calling thread. Note that custom 
+	 * constraints checks, added by subclasses of {@link PropertiesHelper}, must be thread safe 
+	 * if parallel checking is used.
+	 */
+	public PropertiesHelperOptions setValidationPool(ForkJoinPool validationPool)
+	{
+		this.validationPool = validationPool;
+		return this;
+	}
+
+	public int getParallelValidationThreshold()
+	{
+		return parallelValidationThreshold;
+	}
+
+	/**
+	 * Sets the minimal number of metadata entries for which constraints are checked in parallel, 
+	 * if {@link #setValidationPool(ForkJoinPool)} is set. Smaller configurations are always checked 
+	 * sequentially. Default is 1000.
+	 */
+	public PropertiesHelperOptions setParallelValidationThreshold(int parallelValidationThreshold)
+	{
+		if (parallelValidationThreshold < 0)
+			throw new IllegalArgumentException("Threshold must not be negative");
+		this.parallelValidationThreshold = parallelValidationThreshold;
+		return this;
+	}
+
+	public boolean isLazyValidation()
+	{
+		return lazyValidation;
+	}
+
+	/**
+	 * Turns on the lazy validation mode. In this mode, when a helper is created, only the presence of 
+	 * mandatory properties, unknown properties and structured lists are checked. Other constraints of each property
+	 * are checked when it is read for the first time, and the result is remembered. 
+	 * Custom checks added by overriding {@link PropertiesHelper#checkConstraints()} are skipped.
+	 * {@link PropertiesHelper#validateAll()} can be used to check everything.  
+	 * Configuration updates are always validated eagerly, as invalid updates must be rejected.
+	 */
+	public PropertiesHelperOptions setLazyValidation(boolean lazyValidation)
+	{
+		this.lazyValidation = lazyValidation;
+		return this;
+	}
+
+	public boolean isAsynchronousListeners()
+	{
+		return asynchronousListeners;
+	}
+
+	/**
+	 * Turns on asynchronous notification of {@link PropertyChangeListener}s. In this mode, listeners are
+	 * invoked by the {@link #setListenerExecutor(Executor)}, so configuration updates do not wait for them.
+	 * Each listener is notified in the order of changes and never concurrently. If a listener was not yet 
+	 * notified about a change of a key, further changes of the same key are not reported to it separately.
+	 */
+	public PropertiesHelperOptions setAsynchronousListeners(boolean asynchronousListeners)
+	{
+		this.asynchronousListeners = asynchronousListeners;
+		return this;
+	}
+
+	/**
+	 * @return executor used to notify listeners asynchronously or null if the default one is used.
+	 */
+	public Executor getListenerExecutor()
+	{
+		return listenerExecutor;
+	}
+
+	/**
+	 * Sets an executor used to notify listeners, if {@link #setAsynchronousListeners(boolean)} is turned on.
+	 * By default (null) virtual threads are used if supported by the JVM, otherwise a shared pool 
+	 * of daemon threads.
+	 */
+	public PropertiesHelperOptions setListenerExecutor(Executor listenerExecutor)
+	{
+		this.listenerExecutor = listenerExecutor;
+		return this;
+	}
+
+	@Override
+	public PropertiesHelperOptions clone()
+	{
+		try
+		{
+			return (PropertiesHelperOptions) super.clone();
+		} catch (CloneNotSupportedException e)
+		{
+			throw new RuntimeException("BUG: " + e);
+		}
+	}
+}
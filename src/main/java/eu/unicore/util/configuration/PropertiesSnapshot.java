@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import eu.unicore.util.configuration.ValidationResult.Violation;
+
+/**
+ * Immutable state of the effective properties of a {@link PropertiesHelper}.
+ * A new snapshot is created and published on each configuration change (copy on write),
+ * therefore readers can use it without any locking.
+ * <p>
+ * The wrapped {@link Properties} object must never be modified after the snapshot is created.
+ * Values derived from the properties (as parsed typed values) can be cached in the snapshot, 
+ * so they are dropped together with it, when a new configuration is installed.
+ * For the same reason the snapshot provides slots for the {@link PropertyHandle}s, which are sized for 
+ * the handles registered when it was created and grow when a later registered handle stores its value.
+ */
+class PropertiesSnapshot
+{
+	/**
+	 * Marker of a cached null value
+	 */
+	static final Object NULL_VALUE = new Object();
+	
+	private final Properties properties;
+	/**
+	 * Typed values by their type and then by the property name, so reading a property as different types
+	 * does not replace the cached values.
+	 */
+	private final Map<Class<?>, Map<String, Object>> typedValues = new ConcurrentHashMap<>();
+	private final Map<String, List<String>> lists = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> structuredListKeys = new ConcurrentHashMap<>();
+	private final Map<String, InstanceFactory> instanceFactories = new ConcurrentHashMap<>();
+	private final Map<String, FileStatus> fileStatuses = new ConcurrentHashMap<>();
+	private volatile Object[] slots;
+	private volatile PrimitiveValues primitiveValues;
+	private volatile NavigableMap<String, String> sorted;
+	private volatile Set<String> unvalidated;
+	private final Map<String, Optional<Violation>> checkOutcomes = new ConcurrentHashMap<>();
+
+	PropertiesSnapshot(Properties properties, int slotsNumber)
+	{
+		this.properties = properties;
+		this.slots = new Object[slotsNumber];
+	}
+
+	/**
+	 * @return metadata keys of the properties which constraints are checked on first use (in the lazy 
+	 * validation mode) or null if the snapshot was fully validated. The set is not modified after the snapshot 
+	 * was published, outcomes of the checks are stored separately.
+	 */
+	Set<String> getUnvalidated()
+	{
+		return unvalidated;
+	}
+
+	void setUnvalidated(Set<String> unvalidated)
+	{
+		this.unvalidated = unvalidated;
+	}
+
+	/**
+	 * @return the outcome of the check of a property, performed on its first use in the lazy validation mode:
+	 * the problem found or empty if the property is valid. Null if the property was not yet checked.
+	 */
+	Optional<Violation> getCheckOutcome(String key)
+	{
+		return checkOutcomes.get(key);
+	}
+
+	/**
+	 * Stores the outcome of a check, unless another one was stored concurrently.
+	 * @return the stored outcome
+	 */
+	Optional<Violation> putCheckOutcome(String key, Optional<Violation> outcome)
+	{
+		Optional<Violation> existing = checkOutcomes.putIfAbsent(key, outcome);
+		return existing == null ? outcome : existing;
+	}
+
+	String getProperty(String key)
+	{
+		return properties.getProperty(key);
+	}
+
+	boolean containsKey(String key)
+	{
+		return properties.containsKey(key);
+	}
+
+	/**
+	 * @return the wrapped properties. Must be treated as read only.
+	 */
+	Properties getProperties()
+	{
+		return properties;
+	}
+
+	/**
+	 * @return all properties with keys starting with the given prefix, sorted by keys. 
+	 */
+	SortedMap<String, String> getPropertiesWithPrefix(String keyPrefix)
+	{
+		return getSortedProperties().subMap(keyPrefix, true, keyPrefix + Character.MAX_VALUE, false);
+	}
+
+	/**
+	 * The sorted index of properties is built on the first use.
+	 */
+	private NavigableMap<String, String> getSortedProperties()
+	{
+		NavigableMap<String, String> ret = sorted;
+		if (ret == null)
+		{
+			TreeMap<String, String> index = new TreeMap<>();
+			properties.forEach((key, value) -> index.put((String) key, (String) value));
+			ret = index;
+			sorted = ret;
+		}
+		return ret;
+	}
+
+	/**
+	 * @return cached value of the property of the given type, {@link #NULL_VALUE} if null was cached 
+	 * or null if nothing is cached.
+	 */
+	Object getCachedValue(Class<?> type, String name)
+	{
+		Map<String, Object> values = typedValues.get(type);
+		return values == null ? null : values.get(name);
+	}
+
+	void cacheValue(Class<?> type, String name, Object value)
+	{
+		typedValues.computeIfAbsent(type, t -> new ConcurrentHashMap<>())
+			.put(name, value == null ? NULL_VALUE : value);
+	}
+
+	/**
+	 * @return value stored in the given handle slot, {@link #NULL_VALUE} if null was stored 
+	 * or null if the slot is empty or out of range.
+	 */
+	Object getSlot(int slot)
+	{
+		Object[] current = slots;
+		return slot < current.length ? current[slot] : null;
+	}
+
+	/**
+	 * Stores a handle's value. Only immutable values are stored, so no synchronization is needed.
+	 * Values stored concurrently with growing of the slots may be lost, what only causes reloading them.
+	 */
+	void setSlot(int slot, Object value)
+	{
+		Object[] current = slots;
+		if (slot >= current.length)
+		{
+			current = Arrays.copyOf(current, Math.max(slot + 1, current.length * 2));
+			slots = current;
+		}
+		current[slot] = value == null ? NULL_VALUE : value;
+	}
+
+	/**
+	 * @return cached, immutable result of the list values retrieval or null
+	 */
+	List<String> getCachedList(String listPrefix)
+	{
+		return lists.get(listPrefix);
+	}
+
+	void cacheList(String listPrefix, List<String> values)
+	{
+		lists.put(listPrefix, values);
+	}
+
+	/**
+	 * @return cached, immutable set of structured list keys or null
+	 */
+	Set<String> getCachedStructuredListKeys(String listKey)
+	{
+		return structuredListKeys.get(listKey);
+	}
+
+	void cacheStructuredListKeys(String listKey, Set<String> keys)
+	{
+		structuredListKeys.put(listKey, keys);
+	}
+
+	/**
+	 * @return cached factory of instances of the class set as the property value or null
+	 */
+	InstanceFactory getCachedInstanceFactory(String name)
+	{
+		return instanceFactories.get(name);
+	}
+
+	void cacheInstanceFactory(String name, InstanceFactory factory)
+	{
+		instanceFactories.put(name, factory);
+	}
+
+	/**
+	 * @return cached filesystem attributes of the given path or null
+	 */
+	FileStatus getCachedFileStatus(String path)
+	{
+		return fileStatuses.get(path);
+	}
+
+	void cacheFileStatus(String path, FileStatus status)
+	{
+		fileStatuses.put(path, status);
+	}
+
+	/**
+	 * Copies the file attributes cached in other snapshot of the same properties.
+	 */
+	void cacheFileStatuses(PropertiesSnapshot source)
+	{
+		fileStatuses.putAll(source.fileStatuses);
+	}
+
+	/**
+	 * @return values of the primitive typed properties or null if were not yet filled
+	 */
+	PrimitiveValues getPrimitiveValues()
+	{
+		return primitiveValues;
+	}
+
+	void setPrimitiveValues(PrimitiveValues primitiveValues)
+	{
+		this.primitiveValues = primitiveValues;
+	}
+
+	/**
+	 * @return a new, modifiable copy of the wrapped properties
+	 */
+	Properties copyProperties()
+	{
+		Properties ret = new Properties();
+		ret.putAll(properties);
+		return ret;
+	}
+}
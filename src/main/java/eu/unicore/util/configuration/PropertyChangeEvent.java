@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describes a configuration change, delivered to {@link PropertyChangeEventListener}s. Provides
+ * the changed keys and read only views of the configuration before and after the change,
+ * so values can be compared without rereading the whole configuration. All keys are
+ * without the helper's prefix.
+ * <p>
+ * Immutable.
+ */
+public class PropertyChangeEvent
+{
+	private final String key;
+	private final ChangeSet changes;
+	private final PropertiesHelper oldConfiguration;
+	private final PropertiesHelper newConfiguration;
+
+	PropertyChangeEvent(String key, ChangeSet changes, PropertiesHelper oldConfiguration,
+			PropertiesHelper newConfiguration)
+	{
+		this.key = key;
+		this.changes = changes;
+		this.oldConfiguration = oldConfiguration;
+		this.newConfiguration = newConfiguration;
+	}
+
+	/**
+	 * Delivers the event to the listener if it supports events, otherwise notifies it in the
+	 * regular way.
+	 * @param event may be null if there is no event, then listeners are notified in the regular way.
+	 */
+	static void deliver(PropertyChangeListener listener, String key, PropertyChangeEvent event)
+	{
+		if (event != null && listener instanceof PropertyChangeEventListener)
+			((PropertyChangeEventListener) listener).propertiesChanged(event.forKey(key));
+		else
+			listener.propertyChanged(key);
+	}
+
+	PropertyChangeEvent forKey(String key)
+	{
+		return Objects.equals(key, this.key) ? this :
+			new PropertyChangeEvent(key, changes, oldConfiguration, newConfiguration);
+	}
+
+	/**
+	 * @return event describing this change followed by the later one
+	 */
+	PropertyChangeEvent mergedWith(PropertyChangeEvent later)
+	{
+		ChangeSet merged = ChangeSet.of(newConfiguration.prefix,
+				oldConfiguration.getSnapshot().getProperties(),
+				later.newConfiguration.getSnapshot().getProperties());
+		return new PropertyChangeEvent(key, merged, oldConfiguration, later.newConfiguration);
+	}
+
+	/**
+	 * @return null for listeners interested in all properties. Otherwise the key of the changed property 
+	 * the listener is notified about, the same as passed to {@link PropertyChangeListener#propertyChanged(String)}.
+	 * For listeners interested in a property group or a structured list this is the key of the changed 
+	 * property within it (e.g. <code>list.1.member</code>), not the one returned by 
+	 * {@link PropertyChangeListener#getInterestingProperties()}.
+	 */
+	public String getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * @return all changes of the configuration. Note that it can be empty, if the configuration
+	 * was updated without changing any value.
+	 */
+	public ChangeSet getChanges()
+	{
+		return changes;
+	}
+
+	/**
+	 * @return keys of all added, removed and modified properties
+	 */
+	public Set<String> getChangedKeys()
+	{
+		return changes.getChanged();
+	}
+
+	/**
+	 * @return the configuration before the change. It is read only: its modifying methods
+	 * throw {@link UnsupportedOperationException}.
+	 */
+	public PropertiesHelperAPI getOldConfiguration()
+	{
+		return oldConfiguration;
+	}
+
+	/**
+	 * @return the configuration after the change. It is read only: its modifying methods
+	 * throw {@link UnsupportedOperationException}.
+	 */
+	public PropertiesHelperAPI getNewConfiguration()
+	{
+		return newConfiguration;
+	}
+
+	/**
+	 * @param type the value type: String, Integer, Long, Double, Boolean or an enum.
+	 * @return the value of the property before the change, read with the get*Value method
+	 * of {@link PropertiesHelperAPI} corresponding to the type
+	 */
+	public <T> T getOldValue(String name, Class<T> type) throws ConfigurationException
+	{
+		PropertyHandle.checkType(type);
+		return PropertyHandle.read(oldConfiguration, name, type);
+	}
+
+	/**
+	 * @param type the value type: String, Integer, Long, Double, Boolean or an enum.
+	 * @return the value of the property after the change, read with the get*Value method
+	 * of {@link PropertiesHelperAPI} corresponding to the type
+	 */
+	public <T> T getNewValue(String name, Class<T> type) throws ConfigurationException
+	{
+		PropertyHandle.checkType(type);
+		return PropertyHandle.read(newConfiguration, name, type);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "key: " + key + ", " + changes;
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+/**
+ * Listener which is notified about property changes with a {@link PropertyChangeEvent}, describing
+ * what was changed and providing both the previous and the new configuration.
+ * Registered in the same way as the regular {@link PropertyChangeListener}, also the semantics of
+ * {@link #getInterestingProperties()} is the same.
+ */
+public interface PropertyChangeEventListener extends PropertyChangeListener
+{
+	/**
+	 * Invoked when a property change was detected, instead of {@link #propertyChanged(String)}.
+	 */
+	public void propertiesChanged(PropertyChangeEvent event);
+
+	/**
+	 * Not used, the helper invokes {@link #propertiesChanged(PropertyChangeEvent)}.
+	 */
+	@Override
+	public default void propertyChanged(String propertyKey)
+	{
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+/**
+ * Precompiled accessor of a single property of a {@link PropertiesHelper}, obtained with
+ * {@link PropertiesHelper#handle(String, Class)}. The full key, metadata (including the value bounds) 
+ * and the value type are resolved once, when the handle is created, and used to parse the value 
+ * on the first access. Then the value is read from a slot of the current configuration snapshot,
+ * so it costs an array access.
+ * <p>
+ * Handles remain valid when the configuration is reloaded: each new configuration gets a fresh set of slots,
+ * which are filled on the first access. Therefore handles can be kept in long living (e.g. static) fields.
+ * Handles are never released by their helper, so they should be created for a fixed set of properties.
+ * <p>
+ * Supported value types are: String, Integer, Long, Double, Boolean and enums.
+ */
+public final class PropertyHandle<T>
+{
+	private final PropertiesHelper helper;
+	private final String name;
+	private final String key;
+	private final PropertyMD meta;
+	private final Class<T> type;
+	private final int slot;
+
+	PropertyHandle(PropertiesHelper helper, String name, String key, PropertyMD meta, Class<T> type, int slot)
+	{
+		checkType(type);
+		this.helper = helper;
+		this.name = name;
+		this.key = key;
+		this.meta = meta;
+		this.type = type;
+		this.slot = slot;
+	}
+
+	/**
+	 * @return the current value of the property. The semantics is the same as of the get*Value method
+	 * of {@link PropertiesHelper} corresponding to the handle's type.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get() throws ConfigurationException
+	{
+		PropertiesSnapshot current = helper.getSnapshot();
+		Object value = current.getSlot(slot);
+		if (value == PropertiesSnapshot.NULL_VALUE)
+			return null;
+		if (value != null)
+			return (T) value;
+		T loaded = helper.readHandle(current, this);
+		if (helper.isCacheable(current, name))
+			current.setSlot(slot, loaded);
+		return loaded;
+	}
+
+	static void checkType(Class<?> type)
+	{
+		if (type != String.class && type != Integer.class && type != Long.class && type != Double.class
+				&& type != Boolean.class && !type.isEnum())
+			throw new IllegalArgumentException("Unsupported property value type " + type.getName());
+	}
+
+	/**
+	 * Reads the property value with the typed getter of the source corresponding to the type.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <T> T read(PropertiesHelperAPI source, String name, Class<T> type)
+	{
+		if (type == String.class)
+			return (T) source.getValue(name);
+		if (type == Integer.class)
+			return (T) source.getIntValue(name);
+		if (type == Long.class)
+			return (T) source.getLongValue(name);
+		if (type == Double.class)
+			return (T) source.getDoubleValue(name);
+		if (type == Boolean.class)
+			return (T) source.getBooleanValue(name);
+		return (T) source.getEnumValue(name, (Class) type);
+	}
+
+	/**
+	 * @return property name, without the helper's prefix
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * @return full property key, including the helper's prefix
+	 */
+	public String getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * @return metadata of the property or null if the property has no metadata
+	 */
+	public PropertyMD getMetadata()
+	{
+		return meta;
+	}
+
+	public Class<T> getType()
+	{
+		return type;
+	}
+}
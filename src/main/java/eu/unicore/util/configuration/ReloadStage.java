@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+/**
+ * Stages of installing a configuration in a {@link PropertiesHelper}, in the order of execution.
+ * Each stage is executed once per (re)load.
+ */
+public enum ReloadStage
+{
+	/**
+	 * Reading of the properties source (if performed by the helper) and creation of a private copy.
+	 */
+	LOAD,
+	/**
+	 * Resolution of variables.
+	 */
+	VARIABLES,
+	/**
+	 * Loading of the included configuration files.
+	 */
+	INCLUDES,
+	/**
+	 * Checking of the properties constraints defined in metadata.
+	 */
+	VALIDATE,
+	/**
+	 * Detection of unknown properties and logging of the deprecated ones.
+	 */
+	UNKNOWN_AND_DEPRECATED,
+	/**
+	 * Installation of the new configuration, including the computation of derived data. 
+	 * Listeners notification is not included.
+	 */
+	PUBLISH
+}
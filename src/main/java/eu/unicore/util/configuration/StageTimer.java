@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Measures durations of the subsequent {@link ReloadStage}s of a single configuration (re)load.
+ * Starting a stage finishes the previous one. Not thread safe: used by the loading thread only.
+ */
+class StageTimer
+{
+	private final Map<ReloadStage, Duration> durations = new EnumMap<>(ReloadStage.class);
+	private ReloadStage current;
+	private long currentStart;
+
+	/**
+	 * @param stage the first stage
+	 * @param start time (as returned by {@link System#nanoTime()}) when the first stage was started
+	 */
+	StageTimer(ReloadStage stage, long start)
+	{
+		this.current = stage;
+		this.currentStart = start;
+	}
+
+	void begin(ReloadStage stage)
+	{
+		long now = System.nanoTime();
+		finish(now);
+		current = stage;
+		currentStart = now;
+	}
+
+	/**
+	 * Finishes the last stage and logs the durations.
+	 * @return durations of all stages
+	 */
+	Map<ReloadStage, Duration> end(Logger log)
+	{
+		finish(System.nanoTime());
+		current = null;
+		if (log.isDebugEnabled())
+		{
+			StringBuilder sb = new StringBuilder("Configuration loaded in stages:");
+			durations.forEach((stage, duration) -> 
+				sb.append(" ").append(stage).append("=").append(duration.toNanos()/1000).append("us"));
+			log.debug(sb.toString());
+		}
+		return Collections.unmodifiableMap(durations);
+	}
+
+	private void finish(long now)
+	{
+		if (current != null)
+			durations.put(current, Duration.ofNanos(now - currentStart));
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2026 ICM Uniwersytet Warszawski All rights reserved.
+ * See LICENCE.txt file for licensing information.
+ */
+package eu.unicore.util.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a configuration validation: a list of violations found, each one describing 
+ * a single problem in a structured way. Validation problems are collected without using exceptions.
+ * If needed, a {@link ConfigurationException} equivalent to the one thrown by {@link PropertiesHelper}
+ * can be created with {@link #toException()}.
+ * <p>
+ * Not thread safe.
+ */
+public class ValidationResult
+{
+	/**
+	 * Kinds of validation rules.
+	 */
+	public enum Rule 
+	{
+		/**
+		 * A mandatory property, list or list element member is missing.
+		 */
+		MANDATORY, 
+		/**
+		 * The value has an invalid syntax for the property type.
+		 */
+		TYPE, 
+		/**
+		 * The value is smaller than the minimum allowed.
+		 */
+		MIN, 
+		/**
+		 * The value is bigger than the maximum allowed.
+		 */
+		MAX, 
+		/**
+		 * The value is not one of the allowed ones (e.g. enum constants or subclasses of a base class).
+		 */
+		ALLOWED_VALUES, 
+		/**
+		 * The value is not a valid filesystem path.
+		 */
+		PATH, 
+		/**
+		 * A key of a list or of a structured list element is invalid.
+		 */
+		LIST_KEY, 
+		/**
+		 * A member of a structured list element is used in an invalid way.
+		 */
+		STRUCTURE, 
+		/**
+		 * The property is not known.
+		 */
+		UNKNOWN, 
+		/**
+		 * Variables or includes can not be processed. 
+		 */
+		PREPROCESSING, 
+		/**
+		 * A custom check, implemented by a subclass of {@link PropertiesHelper}, failed.
+		 */
+		CUSTOM,
+		/**
+		 * The validation could not be completed because of an unexpected error.
+		 */
+		INTERNAL
+	}
+
+	/**
+	 * A single validation problem.
+	 */
+	public static class Violation
+	{
+		private final String key;
+		private final Rule rule;
+		private final String value;
+		private final String bound;
+		private final String message;
+
+		public Violation(String key, Rule rule, String value, String bound, String message)
+		{
+			this.key = key;
+			this.rule = rule;
+			this.value = value;
+			this.bound = bound;
+			this.message = message;
+		}
+
+		/**
+		 * @return the full (with prefix) key of the invalid property or null if the problem is 
+		 * not related to a particular property
+		 */
+		public String getKey()
+		{
+			return key;
+		}
+
+		public Rule getRule()
+		{
+			return rule;
+		}
+
+		/**
+		 * @return the invalid value or null if not applicable
+		 */
+		public String getValue()
+		{
+			return value;
+		}
+
+		/**
+		 * @return the violated limit (e.g. the maximum value or allowed values) or null if not applicable
+		 */
+		public String getBound()
+		{
+			return bound;
+		}
+
+		/**
+		 * @return message describing the problem, which can be presented to the user
+		 */
+		public String getMessage()
+		{
+			return message;
+		}
+
+		@Override
+		public String toString()
+		{
+			return message;
+		}
+	}
+
+	private final List<Violation> violations = new ArrayList<>();
+
+	public void add(Violation violation)
+	{
+		violations.add(violation);
+	}
+
+	public boolean isValid()
+	{
+		return violations.isEmpty();
+	}
+
+	/**
+	 * @return all violations found, in the order of detection
+	 */
+	public List<Violation> getViolations()
+	{
+		return Collections.unmodifiableList(violations);
+	}
+
+	/**
+	 * @return exception describing the violations or null if there are none. The exception message is
+	 * the same as of the exception thrown by the {@link PropertiesHelper} for the same problems: preprocessing 
+	 * problems are reported first, then constraints violations, then unknown properties. 
+	 */
+	public ConfigurationException toException()
+	{
+		StringBuilder constraints = new StringBuilder();
+		StringBuilder unknown = new StringBuilder();
+		for (Violation violation: violations)
+		{
+			switch (violation.getRule())
+			{
+			case PREPROCESSING:
+				return new ConfigurationException(violation.getMessage());
+			case UNKNOWN:
+				unknown.append(" ").append(violation.getKey());
+				break;
+			default:
+				constraints.append(violation.getMessage() + "\n");
+			}
+		}
+		String warns = constraints.toString().trim();
+		if (warns.length() > 0)
+			return new ConfigurationException("The following problems were found in the configuration:\n"
+					+ warns);
+		if (unknown.length() > 0)
+			return new ConfigurationException("The following properties are not known:" + unknown + 
+					". Remove them or use correct property names if there are mistakes.");
+		return null;
+	}
+
+	/**
+	 * @throws ConfigurationException as returned by {@link #toException()}, if there are any violations.
+	 */
+	public void throwIfInvalid() throws ConfigurationException
+	{
+		ConfigurationException exception = toException();
+		if (exception != null)
+			throw exception;
+	}
+}
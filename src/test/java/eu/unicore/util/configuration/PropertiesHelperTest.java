@@ -6,6 +6,9 @@ package eu.unicore.util.configuration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -13,18 +16,34 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
 
+import eu.unicore.util.configuration.ValidationResult.Rule;
+import eu.unicore.util.configuration.ValidationResult.Violation;
+
 public class PropertiesHelperTest
 {
 	private enum TestEnum {ALLOW, DENY}
@@ -75,6 +94,22 @@ public class PropertiesHelperTest
 		assertEquals(tested.getValue("property3"), "value3");
 	}
 	
+	@Test
+	public void shouldReportReloadStages() throws IOException
+	{
+		Map<String, PropertyMD> META = new HashMap<>();
+		META.put("property", new PropertyMD());
+		META.put("property2", new PropertyMD());
+		META.put("property3", new PropertyMD());
+		FilePropertiesHelper tested = new FilePropertiesHelper("regular.", 
+				"src/test/resources/props/base.properties", META, log);
+		assertEquals(EnumSet.allOf(ReloadStage.class), tested.getReloadStageDurations().keySet());
+
+		tested.reload();
+		assertEquals(EnumSet.allOf(ReloadStage.class), tested.getReloadStageDurations().keySet());
+		assertEquals("value3", tested.getValue("property3"));
+	}
+
 	@Test
 	public void shouldResolveVariables() throws IOException
 	{
@@ -146,6 +181,24 @@ public class PropertiesHelperTest
 		assertEquals("l2.zz.", it.next());
 	}
 
+	@Test
+	public void shouldResolveMetadataKeys()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "mandatory");
+		p.setProperty(PREFIX+"p15.1.sl1", "mandatory");
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log);
+		assertEquals("p09", helper.getMetadataKey("p09"));
+		assertEquals("p11.", helper.getMetadataKey("p11.22"));
+		assertEquals("p12", helper.getMetadataKey("p12.sub.key"));
+		assertEquals("sl2", helper.getMetadataKey("p15.1.sl2"));
+		assertEquals("sl3.", helper.getMetadataKey("p15.1.sl3.4"));
+		assertEquals("sl4", helper.getMetadataKey("p15.1.sl4.subkey"));
+		assertEquals(null, helper.getMetadataKey("p15.1.unknown"));
+		assertEquals(null, helper.getMetadataKey("unknown"));
+		assertEquals(null, helper.getMetadataKey("unknown"));
+	}
+
 	/**
 	 * Tests structured list:
 	 *  - whether missing mandatory is detected
@@ -248,6 +301,455 @@ public class PropertiesHelperTest
 		assertEquals("l3", vals.get(2));
 	}
 
+	@Test
+	public void largeStructuredListShouldBeValidated()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		for (int i=0; i<2000; i++)
+		{
+			p.setProperty(PREFIX+"p15."+i+".sl1", "v"+i);
+			p.setProperty(PREFIX+"p15."+i+".sl2", String.valueOf(i%40));
+			p.setProperty(PREFIX+"p15."+i+".sl3.1", "l"+i);
+		}
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log);
+		assertEquals(2000, helper.getStructuredListKeys("p15.").size());
+		assertEquals("v1999", helper.getValue("p15.1999.sl1"));
+
+		p.remove(PREFIX+"p15.1500.sl1");
+		try
+		{
+			new PropertiesHelper(PREFIX, p, METADATA, log);
+			fail("missing mandatory member of a list element was not detected");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("p15.1500."), e.getMessage());
+		}
+	}
+
+	@Test
+	public void parallelValidationShouldReportSameProblems()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p03", "notANumber");
+		p.setProperty(PREFIX+"p07", "988");
+		p.setProperty(PREFIX+"p08", "maybe");
+		p.setProperty(PREFIX+"p11.a", "x");
+		p.setProperty(PREFIX+"p15.1.sl2", "41");
+		String sequential = null;
+		try
+		{
+			new PropertiesHelper(PREFIX, p, METADATA, log);
+			fail("Invalid configuration was accepted");
+		} catch (ConfigurationException e)
+		{
+			sequential = e.getMessage();
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			PropertiesHelperOptions options = new PropertiesHelperOptions()
+					.setValidationPool(pool)
+					.setParallelValidationThreshold(0);
+			for (int i=0; i<20; i++)
+			{
+				try
+				{
+					new PropertiesHelper(PREFIX, p, METADATA, log, options);
+					fail("Invalid configuration was accepted");
+				} catch (ConfigurationException e)
+				{
+					assertEquals(sequential, e.getMessage());
+				}
+			}
+			p.clear();
+			p.setProperty(PREFIX+"p09", "a");
+			p.setProperty(PREFIX+"p15.1.sl1", "a");
+			PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log, options);
+			assertEquals("a", helper.getValue("p09"));
+		} finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void metadataIndexShouldBeSharedUntilMetadataChanges()
+	{
+		Map<String, PropertyMD> meta = new HashMap<>();
+		meta.put("p1", new PropertyMD().setInt());
+		MetadataIndex index = MetadataIndex.of(meta);
+		assertSame(index, MetadataIndex.of(meta));
+		assertNotSame(index, MetadataIndex.of(new HashMap<>(meta)));
+
+		meta.put("p2", new PropertyMD().setMandatory());
+		MetadataIndex updated = MetadataIndex.of(meta);
+		assertNotSame(index, updated);
+		assertSame(updated, MetadataIndex.of(meta));
+		meta.put("p2", new PropertyMD());
+		assertNotSame(updated, MetadataIndex.of(meta));
+
+		Properties p = new Properties();
+		p.setProperty("p2", "a");
+		new PropertiesHelper("", p, meta, log);
+		assertEquals("p2", MetadataIndex.of(meta).getMetadataKey("p2"));
+	}
+
+	@Test
+	public void changeSetShouldContainChangesWithPrefix()
+	{
+		Properties orig = new Properties();
+		orig.setProperty("pfx.a", "1");
+		orig.setProperty("pfx.b", "2");
+		orig.setProperty("pfx.g.1", "x");
+		orig.setProperty("other.a", "1");
+		Properties updated = new Properties();
+		updated.setProperty("pfx.a", "1");
+		updated.setProperty("pfx.c", "3");
+		updated.setProperty("pfx.g.1", "y");
+		updated.setProperty("other.b", "1");
+
+		ChangeSet changes = ChangeSet.of("pfx.", orig, updated);
+		assertEquals(Set.of("c"), changes.getAdded());
+		assertEquals(Set.of("b"), changes.getRemoved());
+		assertEquals(Set.of("g.1"), changes.getModified());
+		assertTrue(changes.isGroupChanged("g."));
+		assertFalse(changes.isChanged("a"));
+		assertEquals(Set.of("b", "g."), changes.filter(Set.of("a", "b", "g.", "h."), k -> k.endsWith(".")));
+		assertTrue(ChangeSet.of("pfx.", orig, orig).isEmpty());
+	}
+
+	@Test
+	public void deprecationShouldBeReportedOnceWhileSettingIsPresent()
+	{
+		List<String> warnings = new ArrayList<>();
+		Logger recording = (Logger) Proxy.newProxyInstance(Logger.class.getClassLoader(), 
+				new Class<?>[] {Logger.class}, (proxy, method, args) -> 
+				{
+					if (method.getName().equals("warn") && args.length == 1 && args[0] instanceof String)
+						warnings.add((String) args[0]);
+					return method.invoke(log, args);
+				});
+		Map<String, PropertyMD> meta = new HashMap<>();
+		meta.put("old", new PropertyMD().setDeprecated());
+		meta.put("older", new PropertyMD().setDeprecated());
+		meta.put("current", new PropertyMD());
+		Properties p = new Properties();
+		p.setProperty("pfx.old", "a");
+		PropertiesHelper helper = new PropertiesHelper("pfx.", p, meta, recording);
+		assertEquals(1, warnings.size());
+		assertTrue(warnings.get(0).contains("pfx.old"));
+
+		p.setProperty("pfx.current", "b");
+		helper.setProperties(p);
+		helper.setProperty("current", "c");
+		assertEquals(1, warnings.size());
+
+		helper.setProperty("older", "d");
+		assertEquals(2, warnings.size());
+		assertTrue(warnings.get(1).contains("pfx.older"));
+
+		p.remove("pfx.old");
+		helper.setProperties(p);
+		p.setProperty("pfx.old", "a");
+		helper.setProperties(p);
+		assertEquals(3, warnings.size());
+		assertTrue(warnings.get(2).contains("pfx.old"));
+	}
+
+	@Test
+	public void lazyValidationShouldFailOnEveryConcurrentRead() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p07", "988");
+		p.setProperty(PREFIX+"p10", "/tmp");
+		PropertiesHelperOptions options = new PropertiesHelperOptions().setLazyValidation(true)
+				.setPathsPrefetched(true).setFileAttributesCacheTTL(10000);
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log, options)
+		{
+			@Override
+			protected void checkPropertyConstraints(PropertyMD meta, String key) throws ConfigurationException
+			{
+				if (key.equals("p10"))
+					throw new ConfigurationException("p10 is forbidden");
+				super.checkPropertyConstraints(meta, key);
+			}
+		};
+		try
+		{
+			helper.getValue("p10");
+			fail("Invalid path was returned");
+		} catch (ConfigurationException e)
+		{
+			assertEquals("p10 is forbidden", e.getMessage());
+		}
+
+		List<String> returned = new CopyOnWriteArrayList<>();
+		List<Thread> readers = new ArrayList<>();
+		for (int i=0; i<4; i++)
+		{
+			Thread reader = new Thread(() -> {
+				for (int j=0; j<1000; j++)
+				{
+					try
+					{
+						returned.add(helper.getValue("p07"));
+					} catch (ConfigurationException expected) {/*ok*/}
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+		for (Thread reader: readers)
+			reader.join();
+		assertTrue(returned.isEmpty(), returned.toString());
+	}
+
+	@Test
+	public void lazyValidationShouldCheckPropertiesOnFirstUse()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p03", "notANumber");
+		p.setProperty(PREFIX+"p07", "988");
+		PropertiesHelperOptions options = new PropertiesHelperOptions().setLazyValidation(true);
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log, options);
+		assertEquals("a", helper.getValue("p09"));
+		assertEquals(600, helper.getInt("p04", 0));
+		for (int i=0; i<2; i++)
+		{
+			try
+			{
+				helper.getValue("p07");
+				fail("Invalid value was returned");
+			} catch (ConfigurationException e)
+			{
+				assertTrue(e.getMessage().contains("too big"), e.getMessage());
+			}
+		}
+		try
+		{
+			helper.validateAll();
+			fail("Invalid configuration was validated");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("p03"), e.getMessage());
+			assertTrue(e.getMessage().contains("p07"), e.getMessage());
+		}
+		helper.setProperty("p07", "10");
+		assertEquals(10, (int)helper.getIntValue("p07"));
+		helper.setProperty("p03", "10");
+		helper.validateAll();
+		assertEquals(10L, helper.getLong("p03", 0));
+
+		p.remove(PREFIX+"p09");
+		try
+		{
+			new PropertiesHelper(PREFIX, p, METADATA, log, options);
+			fail("Missing mandatory property was not detected");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("mandatory"), e.getMessage());
+		}
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"unknown", "a");
+		try
+		{
+			new PropertiesHelper(PREFIX, p, METADATA, log, options);
+			fail("Unknown property was not detected");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("not known"), e.getMessage());
+		}
+	}
+
+	@Test
+	public void lazyValidationShouldAllowCustomChecksReadingTheProperty()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p04", "601");
+		PropertiesHelperOptions options = new PropertiesHelperOptions().setLazyValidation(true);
+		PropertiesHelper helper = new EvenNumbersHelper(p, options);
+		for (int i=0; i<2; i++)
+		{
+			try
+			{
+				helper.getIntValue("p04");
+				fail("Invalid value was returned");
+			} catch (ConfigurationException e)
+			{
+				assertTrue(e.getMessage().contains("must be even"), e.getMessage());
+			}
+		}
+		try
+		{
+			new EvenNumbersHelper(p, options).validateAll();
+			fail("Invalid configuration was validated");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("must be even"), e.getMessage());
+		}
+
+		p.setProperty(PREFIX+"p04", "602");
+		helper = new EvenNumbersHelper(p, options);
+		assertEquals(602, (int)helper.getIntValue("p04"));
+		helper.validateAll();
+	}
+
+	@Test
+	public void validationShouldCollectViolations()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p01", "maybe");
+		p.setProperty(PREFIX+"p03", "notANumber");
+		p.setProperty(PREFIX+"p07", "988");
+		p.setProperty(PREFIX+"p08", "maybe");
+		p.setProperty(PREFIX+"foo", "bar");
+		ValidationResult result = PropertiesHelper.validate(PREFIX, p, METADATA, log);
+		assertFalse(result.isValid());
+		Map<String, Violation> byKey = new HashMap<>();
+		for (Violation violation: result.getViolations())
+			byKey.put(violation.getKey(), violation);
+		assertEquals(7, byKey.size(), byKey.toString());
+		assertEquals(Rule.ALLOWED_VALUES, byKey.get(PREFIX+"p01").getRule());
+		assertEquals("ALLOW DENY", byKey.get(PREFIX+"p01").getBound());
+		assertEquals(Rule.TYPE, byKey.get(PREFIX+"p03").getRule());
+		assertEquals("notANumber", byKey.get(PREFIX+"p03").getValue());
+		assertEquals(Rule.MAX, byKey.get(PREFIX+"p07").getRule());
+		assertEquals("987", byKey.get(PREFIX+"p07").getBound());
+		assertEquals(Rule.ALLOWED_VALUES, byKey.get(PREFIX+"p08").getRule());
+		assertEquals(Rule.MANDATORY, byKey.get(PREFIX+"p09").getRule());
+		assertEquals(Rule.MANDATORY, byKey.get(PREFIX+"p15.").getRule());
+		assertEquals(Rule.UNKNOWN, byKey.get(PREFIX+"foo").getRule());
+		try
+		{
+			new PropertiesHelper(PREFIX, p, METADATA, log);
+			fail("Invalid configuration was accepted");
+		} catch (ConfigurationException e)
+		{
+			assertEquals(e.getMessage(), result.toException().getMessage());
+		}
+
+		p.clear();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p04", "3");
+		assertTrue(PropertiesHelper.validate(PREFIX, p, METADATA, log).isValid());
+		assertEquals(null, PropertiesHelper.validate(PREFIX, p, METADATA, log).toException());
+
+		try
+		{
+			new EvenNumbersHelper(p);
+			fail("Custom check was not performed");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("must be even"), e.getMessage());
+		}
+		p.setProperty(PREFIX+"p04", "4");
+		new EvenNumbersHelper(p);
+	}
+
+	private static class EvenNumbersHelper extends PropertiesHelper
+	{
+		EvenNumbersHelper(Properties properties)
+		{
+			super(PREFIX, properties, METADATA, PropertiesHelperTest.log);
+		}
+
+		EvenNumbersHelper(Properties properties, PropertiesHelperOptions options)
+		{
+			super(PREFIX, properties, METADATA, PropertiesHelperTest.log, options);
+		}
+
+		@Override
+		protected void checkPropertyConstraints(PropertyMD meta, String key)
+		{
+			super.checkPropertyConstraints(meta, key);
+			if (key.equals("p04") && getIntValue(key) % 2 != 0)
+				throw new ConfigurationException("The property p04 must be even");
+		}
+	}
+
+	@Test
+	public void singlePropertyUpdatesShouldBeValidated()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p15.1.sl2", "4");
+		p.setProperty(PREFIX+"p15.2.sl1", "b");
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log);
+
+		assertSetPropertyFails(helper, "p03", "notANumber", "integer");
+		assertSetPropertyFails(helper, "p07", "988", "too big");
+		assertSetPropertyFails(helper, "p09", null, "mandatory");
+		assertSetPropertyFails(helper, "p11.a", "x", "numerical");
+		assertSetPropertyFails(helper, "p16", "x", "not known");
+		assertSetPropertyFails(helper, "p15.1.sl2", "41", "too big");
+		assertSetPropertyFails(helper, "p15.1.sl1", null, "must be defined");
+		assertSetPropertyFails(helper, "p15.x.sl1", "a", "numerical");
+		assertSetPropertyFails(helper, "p15.3.sl2", "4", "must be defined");
+		assertSetPropertyFails(helper, "p15.1.unknown", "4", "not known");
+		assertEquals("a", helper.getValue("p15.1.sl1"));
+		assertEquals(600L, (long)helper.getLongValue("p03"));
+
+		helper.setProperty("p15.3.sl1", "c");
+		helper.setProperty("p15.3.sl2", "4");
+		helper.setProperty("p13.1", "x");
+		assertEquals(3, helper.getStructuredListKeys("p15.").size());
+		helper.setProperty("p15.3.sl2", null);
+		helper.setProperty("p15.3.sl1", null);
+		helper.setProperty("p15.2.sl1", null);
+		helper.setProperty("p15.1.sl2", null);
+		assertSetPropertyFails(helper, "p15.1.sl1", null, "must have elements");
+		assertEquals(1, helper.getStructuredListKeys("p15.").size());
+	}
+
+	@Test
+	public void singlePropertyUpdatesShouldFailAsFullValidation()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p09", "a");
+		p.setProperty(PREFIX+"p15.1.sl1", "a");
+		p.setProperty(PREFIX+"p15.1.sl2", "4");
+		p.setProperty(PREFIX+"p15.2.sl1", "b");
+		String[][] updates = {{"p15.7", "zz"}, {"p15.3.sl2", "4"}, {"p15.1.sl1", null}, 
+				{"p15.x.sl1", "a"}, {"p15.1.sl2", "41"}, {"p15.1.unknown", "4"}, {"p15.1.sl3.", "x"}};
+		for (String[] update: updates)
+		{
+			PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA, log);
+			Properties updated = new Properties();
+			updated.putAll(p);
+			if (update[1] == null)
+				updated.remove(PREFIX+update[0]);
+			else
+				updated.setProperty(PREFIX+update[0], update[1]);
+			ConfigurationException full = assertThrows(ConfigurationException.class, 
+					() -> new PropertiesHelper(PREFIX, updated, METADATA, log));
+			ConfigurationException delta = assertThrows(ConfigurationException.class, 
+					() -> helper.setProperty(update[0], update[1]));
+			assertEquals(full.getMessage(), delta.getMessage(), update[0]);
+		}
+	}
+
+	private void assertSetPropertyFails(PropertiesHelper helper, String key, String value, String message)
+	{
+		try
+		{
+			helper.setProperty(key, value);
+			fail("Invalid update of " + key + " was accepted");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains(message), e.getMessage());
+		}
+	}
+
 	private int global = 0;
 	private int focused = 0;
 
@@ -361,6 +863,222 @@ public class PropertiesHelperTest
 		METADATA2.put("p1", new PropertyMD("600").setLong());
 	}
 
+	@Test
+	public void focusedListenersShouldBeNotifiedAboutTheirKeysOnly()
+	{
+		Properties p = new Properties();
+		p.setProperty("p09", "ola");
+		p.setProperty("p15.44.sl1", "asda");
+		PropertiesHelper helper = new PropertiesHelper("", p, METADATA, log);
+		List<String> notified = new CopyOnWriteArrayList<>();
+		PropertyChangeListener listener = new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChanged(String propertyKey)
+			{
+				notified.add(propertyKey);
+			}
+
+			@Override
+			public String[] getInterestingProperties()
+			{
+				return new String[] {"p15.", "p0", "p09"};
+			}
+		};
+		helper.addPropertyChangeListener(listener);
+		PropertiesHelper clone = helper.clone();
+
+		helper.setProperty("p15.44.sl2", "3");
+		helper.setProperty("p09", "new");
+		assertEquals(List.of("p15.44.sl2", "p09"), notified);
+
+		p.setProperty("p09", "new");
+		p.setProperty("p15.44.sl2", "4");
+		helper.setProperties(p);
+		assertEquals(List.of("p15.44.sl2", "p09", "p15."), notified);
+
+		clone.setProperty("p09", "cloned");
+		assertEquals("p09", notified.get(3));
+
+		helper.removePropertyChangeListener(listener);
+		helper.setProperty("p09", "removed");
+		assertEquals(4, notified.size());
+	}
+
+	@Test
+	public void asynchronousListenersShouldNotBlockUpdates() throws Exception
+	{
+		Properties p = new Properties();
+		p.setProperty("p09", "ola");
+		p.setProperty("p15.44.sl1", "asda");
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		PropertiesHelper helper = new PropertiesHelper("", p, METADATA, log, 
+				new PropertiesHelperOptions().setAsynchronousListeners(true).setListenerExecutor(executor));
+		CountDownLatch entered = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		List<String> notified = new CopyOnWriteArrayList<>();
+		helper.addPropertyChangeListener(new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChanged(String propertyKey)
+			{
+				notified.add(propertyKey);
+				entered.countDown();
+				try
+				{
+					release.await();
+				} catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			@Override
+			public String[] getInterestingProperties()
+			{
+				return new String[] {"p09", "p14"};
+			}
+		});
+
+		helper.setProperty("p09", "a");
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+		helper.setProperty("p09", "b");
+		helper.setProperty("p14", "1");
+		helper.setProperty("p09", "c");
+		assertEquals(2, helper.getListenerQueueDepth());
+		assertEquals(List.of("p09"), notified);
+
+		release.countDown();
+		for (int i=0; i<100 && helper.getListenerQueueDepth() > 0; i++)
+			Thread.sleep(50);
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(List.of("p09", "p09", "p14"), notified);
+		assertEquals(0, helper.getListenerQueueDepth());
+	}
+
+	@Test
+	public void batchUpdateShouldBeValidatedAndNotifiedOnce()
+	{
+		Properties p = new Properties();
+		p.setProperty("p09", "ola");
+		p.setProperty("p12", "viola");
+		p.setProperty("p15.44.sl1", "asda");
+		PropertiesHelper helper = new PropertiesHelper("", p, METADATA, log);
+		List<String> notified = new ArrayList<>();
+		helper.addPropertyChangeListener(new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChanged(String propertyKey)
+			{
+				notified.add(propertyKey);
+			}
+
+			@Override
+			public String[] getInterestingProperties()
+			{
+				return null;
+			}
+		});
+		helper.addPropertyChangeListener(new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChanged(String propertyKey)
+			{
+				notified.add(propertyKey);
+			}
+
+			@Override
+			public String[] getInterestingProperties()
+			{
+				return new String[] {"p12", "p15."};
+			}
+		});
+
+		helper.update(editor -> editor
+				.set("p09", "new")
+				.set("p12.a", "1")
+				.set("p12.b", "2")
+				.remove("p15.44.sl1")
+				.set("p15.1.sl1", "x"));
+		assertEquals(Arrays.asList(null, "p12"), notified);
+		assertEquals("new", helper.getValue("p09"));
+		assertEquals("x", helper.getValue("p15.1.sl1"));
+		assertFalse(helper.isSet("p15.44.sl1"));
+
+		notified.clear();
+		helper.update(editor -> editor.set("p09", editor.get("p09")));
+		assertTrue(notified.isEmpty());
+
+		try
+		{
+			helper.update(editor -> editor.set("p09", "newer").set("p03", "invalid"));
+			fail("Managed to apply invalid update");
+		} catch (ConfigurationException expected) {/*ok*/}
+		assertEquals("new", helper.getValue("p09"));
+		assertTrue(notified.isEmpty());
+
+		List<PropertiesEditor> leaked = new ArrayList<>();
+		helper.update(editor -> leaked.add(editor.set("p14", "5")));
+		try
+		{
+			leaked.get(0).set("p14", "invalid");
+			fail("Managed to modify configuration with a completed editor");
+		} catch (IllegalStateException expected) {/*ok*/}
+		assertEquals(5, helper.getIntValue("p14"));
+		assertEquals("5", helper.getRawProperty("p14"));
+	}
+
+	@Test
+	public void eventListenersShouldReceiveOldAndNewValues()
+	{
+		Properties p = new Properties();
+		p.setProperty("p09", "ola");
+		p.setProperty("p14", "1");
+		p.setProperty("p15.44.sl1", "asda");
+		PropertiesHelper helper = new PropertiesHelper("", p, METADATA, log);
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		helper.addPropertyChangeListener(new PropertyChangeEventListener()
+		{
+			@Override
+			public void propertiesChanged(PropertyChangeEvent event)
+			{
+				events.add(event);
+			}
+
+			@Override
+			public String[] getInterestingProperties()
+			{
+				return new String[] {"p14"};
+			}
+		});
+
+		helper.setProperty("p14", "2");
+		assertEquals(1, events.size());
+		PropertyChangeEvent event = events.get(0);
+		assertEquals("p14", event.getKey());
+		assertEquals(Set.of("p14"), event.getChangedKeys());
+		assertEquals(1, event.getOldValue("p14", Integer.class));
+		assertEquals(2, event.getNewValue("p14", Integer.class));
+		assertEquals(2, event.getNewConfiguration().getIntValue("p14"));
+		PropertiesHelperAPI view = event.getNewConfiguration();
+		assertThrows(UnsupportedOperationException.class, () -> view.setProperty("p14", "5"));
+		assertThrows(UnsupportedOperationException.class, () -> view.setProperties(p));
+		assertEquals(2, helper.getIntValue("p14"));
+
+		p.setProperty("p14", "3");
+		p.setProperty("p09", "new");
+		helper.setProperties(p);
+		assertEquals(2, events.size());
+		event = events.get(1);
+		assertEquals(Set.of("p09", "p14"), event.getChangedKeys());
+		assertEquals(Set.of("p09", "p14"), event.getChanges().getModified());
+		assertEquals("ola", event.getOldValue("p09", String.class));
+		assertEquals(2L, event.getOldValue("p14", Long.class));
+		assertEquals(3L, event.getNewValue("p14", Long.class));
+		assertEquals(3, helper.getIntValue("p14"));
+	}
+
 	@Test
 	public void testUpdatesWithNoChanges()
 	{
@@ -387,6 +1105,86 @@ public class PropertiesHelperTest
 		assertFalse(changeNotified);
 	}
 	
+	@Test
+	public void readersShouldSeeConsistentValuesDuringReloads() throws Exception
+	{
+		Properties p1 = new Properties();
+		p1.setProperty(PREFIX+"p1", "1");
+		Properties p2 = new Properties();
+		p2.setProperty(PREFIX+"p1", "2");
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p1, METADATA2, log);
+		List<Throwable> errors = new CopyOnWriteArrayList<>();
+		Thread reader = new Thread(() -> {
+			for (int i=0; i<100000; i++)
+			{
+				long val = helper.getLongValue("p1");
+				if (val != 1 && val != 2)
+					errors.add(new AssertionError("Unexpected value " + val));
+			}
+		});
+		reader.start();
+		for (int i=0; i<1000; i++)
+			helper.setProperties(i % 2 == 0 ? p2 : p1);
+		reader.join();
+		assertTrue(errors.isEmpty(), errors.toString());
+	}
+	
+	@Test
+	public void typedValuesShouldBeRefreshedAfterUpdate()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p1", "1234");
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA2, log);
+		Long first = helper.getLongValue("p1");
+		assertTrue(first == helper.getLongValue("p1"));
+		Integer firstInt = helper.getIntValue("p1");
+		assertTrue(first == helper.getLongValue("p1"));
+		assertTrue(firstInt == helper.getIntValue("p1"));
+		assertEquals("1234", helper.getValue("p1"));
+		
+		helper.setProperty("p1", "4321");
+		assertEquals(4321L, helper.getLongValue("p1").longValue());
+		
+		helper.setProperty("p1", null);
+		assertEquals(600L, helper.getLongValue("p1").longValue());
+		
+		p.setProperty(PREFIX+"p1", "99");
+		helper.setProperties(p);
+		assertEquals(99L, helper.getLongValue("p1").longValue());
+	}
+	
+	@Test
+	public void handlesShouldFollowUpdates()
+	{
+		Properties p = new Properties();
+		p.setProperty(PREFIX+"p1", "1234");
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, METADATA2, log);
+		PropertyHandle<Long> handle = helper.handle("p1", Long.class);
+		assertTrue(handle == helper.handle("p1", Long.class));
+		assertEquals(PREFIX+"p1", handle.getKey());
+		assertEquals(1234L, handle.get().longValue());
+		assertEquals(1234L, handle.get().longValue());
+		
+		helper.setProperty("p1", "4321");
+		assertEquals(4321L, handle.get().longValue());
+		
+		PropertyHandle<String> strHandle = helper.handle("p1", String.class);
+		assertEquals("4321", strHandle.get());
+		p.setProperty(PREFIX+"p1", "99");
+		helper.setProperties(p);
+		assertEquals(99L, handle.get().longValue());
+		assertEquals("99", strHandle.get());
+		
+		PropertiesHelper lazy = new PropertiesHelper(PREFIX, 
+				load("prefix.p09=mandatory\nprefix.p07=988\nprefix.p15.44.sl1=asda"), METADATA, log, 
+				new PropertiesHelperOptions().setLazyValidation(true));
+		assertEquals(TestEnum.ALLOW, lazy.handle("p01", TestEnum.class).get());
+		assertEquals(600, lazy.handle("p03", Integer.class).get().intValue());
+		assertThrows(ConfigurationException.class, () -> lazy.handle("p07", Integer.class).get());
+		lazy.setProperty("p07", "987");
+		assertEquals(987, lazy.handle("p07", Integer.class).get().intValue());
+	}
+	
 	private static Properties load(String input)
 	{
 		Properties ret = new Properties();
@@ -456,6 +1254,21 @@ public class PropertiesHelperTest
 		{
 			assertTrue(e.getMessage().contains("foo"));
 		}
+
+		PROP = "prefix.p09=mandatory\nprefix.p15.44.sl1=asda\nprefix.p11.1=a\nprefix.p12.sub.key=a\n"
+				+ "prefix.p15.44.sl4.sub=a\nprefix.p15.44.sl3.1=a";
+		new PropertiesHelper(PREFIX, load(PROP), METADATA, log);
+		for (String unknown: new String[] {"p09.sub", "p15.44.sl1.sub", "p15.44", "p150"})
+		{
+			try
+			{
+				new PropertiesHelper(PREFIX, load(PROP + "\nprefix." + unknown + "=a"), METADATA, log);
+				fail("Managed to load cfg with unknown " + unknown);
+			} catch (ConfigurationException e)
+			{
+				assertTrue(e.getMessage().contains("not known: prefix." + unknown + "."), e.getMessage());
+			}
+		}
 	}
 
 	@Test
@@ -485,6 +1298,66 @@ public class PropertiesHelperTest
 		new PropertiesHelper(PREFIX, load(PROP), METADATA, log);
 	}
 
+	@Test
+	public void testPrimitiveGetters()
+	{
+		String PROP = "prefix.p09=mandatory\nprefix.p03 = 12345678901\nprefix.p05 = -100\nprefix.p15.44.sl1=asda";
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, load(PROP), METADATA, log);
+		assertEquals(12345678901L, helper.getLong("p03", 1));
+		assertEquals(-100, helper.getInt("p05", 1));
+		assertEquals(600, helper.getInt("p04", 1));
+		assertEquals(-1, helper.getInt("p14", -1));
+		assertEquals(true, helper.getBoolean("p08", false));
+		assertEquals(33, helper.getInt("p15.44.sl2", 1));
+		
+		helper.setProperty("p08", "no");
+		helper.setProperty("p14", "7");
+		assertEquals(false, helper.getBoolean("p08", true));
+		assertEquals(7, helper.getInt("p14", -1));
+		assertEquals(12345678901L, helper.getLong("p03", 1));
+		assertEquals(-100, helper.getInt("p05", 1));
+		helper.setProperty("p05", null);
+		assertEquals(600, helper.getInt("p05", 1));
+		
+		PropertiesHelper custom = new PropertiesHelper(PREFIX, load(PROP), METADATA, log)
+		{
+			@Override
+			public Integer getIntValue(String name)
+			{
+				return name.equals("p04") ? 1 : super.getIntValue(name);
+			}
+		};
+		assertEquals(1, custom.getInt("p04", 0));
+		assertEquals(-100, custom.getInt("p05", 0));
+	}
+
+	@Test
+	public void testClassProperties()
+	{
+		Map<String, PropertyMD> meta = new HashMap<>();
+		meta.put("cls", new PropertyMD(ArrayList.class, List.class));
+		Properties p = new Properties();
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, p, meta, log);
+		assertEquals(ArrayList.class, helper.getClassValue("cls", List.class));
+		//List.class is a raw type, so is the type of the created instances
+		@SuppressWarnings("rawtypes")
+		Supplier<List> factory = helper.getInstanceFactory("cls", List.class);
+		assertTrue(factory == helper.getInstanceFactory("cls", List.class));
+		assertTrue(factory.get() instanceof ArrayList);
+		assertFalse(factory.get() == factory.get());
+		
+		helper.setProperty("cls", LinkedList.class.getName());
+		assertTrue(helper.getInstanceFactory("cls", List.class).get() instanceof LinkedList);
+		try
+		{
+			helper.getInstanceFactory("cls", Set.class);
+			fail("Got factory of instances of a wrong class");
+		} catch (ConfigurationException e)
+		{
+			//ok
+		}
+	}
+
 	@Test
 	public void testParsingEnums()
 	{
@@ -493,6 +1366,16 @@ public class PropertiesHelperTest
 		{
 			PropertiesHelper helper = new PropertiesHelper(PREFIX, load(PROP), METADATA, log);
 			assertEquals(TestEnum.DENY, helper.getEnumValue("p01", TestEnum.class));
+			helper.setProperty("p01", "allow");
+			assertEquals(TestEnum.ALLOW, helper.getEnumValue("p01", TestEnum.class));
+			try
+			{
+				helper.setProperty("p01", "maybe");
+				fail("Managed to set invalid enum value");
+			} catch (ConfigurationException e)
+			{
+				assertTrue(e.getMessage().contains("must be one of ALLOW DENY"));
+			}
 		} catch (ConfigurationException e)
 		{
 			fail(e.toString());
@@ -523,6 +1406,48 @@ public class PropertiesHelperTest
 		}
 	}
 
+	@Test
+	public void testCachedFileAttributes() throws Exception
+	{
+		File dir = new File("target/cachedPathTest");
+		FileUtils.deleteDirectory(dir);
+		String PROP = "prefix.p09=mandatory\nprefix.p10 = target/cachedPathTest\nprefix.p15.44.sl1=asda";
+		PropertiesHelperOptions options = new PropertiesHelperOptions()
+				.setFileAttributesCacheTTL(100000)
+				.setPathsPrefetched(true);
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, load(PROP), METADATA, log, options);
+		assertTrue(dir.mkdir());
+		try
+		{
+			helper.getFileValue("p10", true);
+			fail("Cached attributes of a missing directory were not used");
+		} catch (ConfigurationException e)
+		{
+			//ok
+		}
+		helper.setProperties(load(PROP));
+		assertEquals(dir.getPath(), helper.getFileValue("p10", true).getPath());
+	}
+
+	@Test
+	public void prefetchedPathsShouldBeValidatedWithoutCache() throws Exception
+	{
+		String PROP = "prefix.p09=mandatory\nprefix.p10 = target\nprefix.p15.44.sl1=asda";
+		PropertiesHelperOptions options = new PropertiesHelperOptions().setPathsPrefetched(true);
+		PropertiesHelper helper = new PropertiesHelper(PREFIX, load(PROP), METADATA, log, options);
+		Properties invalid = load(PROP);
+		invalid.setProperty(PREFIX+"p10", "tar\u0000get");
+		try
+		{
+			helper.setProperties(invalid);
+			fail("Invalid path was accepted");
+		} catch (ConfigurationException e)
+		{
+			assertTrue(e.getMessage().contains("must be a filesystem path"), e.getMessage());
+		}
+		assertEquals("target", helper.getValue("p10"));
+	}
+
 	@Test
 	public void testParsingLists()
 	{
@@ -538,6 +1463,11 @@ public class PropertiesHelperTest
 			assertEquals(2, vals.size());
 			assertEquals("ala", vals.get(0));
 			assertEquals("ola", vals.get(1));
+			assertTrue(vals == helper.getListOfValues("p13."));
+			helper.setProperty("p13.33", "ela");
+			vals = helper.getListOfValues("p13.");
+			assertEquals(3, vals.size());
+			assertEquals("ela", vals.get(2));
 		} catch (ConfigurationException e)
 		{
 			e.printStackTrace();
@@ -625,4 +1555,56 @@ public class PropertiesHelperTest
 		assertTrue(f.exists());
 	}
 
+	@Test
+	public void linterShouldReportAllFiles() throws Exception
+	{
+		File dir = new File("target/lint");
+		FileUtils.deleteDirectory(dir);
+		dir.mkdirs();
+		FileUtils.writeStringToFile(new File(dir, "a.properties"), 
+				"prefix.p09=x\nprefix.p15.1.sl1=a\n", "UTF-8");
+		FileUtils.writeStringToFile(new File(dir, "b.properties"), 
+				"prefix.p09=x\nprefix.p15.1.sl1=a\nprefix.p14=x\nprefix.foo=a\n", "UTF-8");
+		FileUtils.writeStringToFile(new File(dir, "c.properties"), "prefix.p09=\\u00x\n", "UTF-8");
+		FileUtils.writeStringToFile(new File(dir, "ignored.txt"), "foo=a\n", "UTF-8");
+
+		List<ConfigurationLinter.FileReport> reports = new ConfigurationLinter(log, 2)
+				.addFiles(dir, PropertiesHelperTest.class.getName(), null)
+				.lint();
+		assertEquals(3, reports.size());
+		assertTrue(reports.get(0).isValid());
+		assertEquals("b.properties", reports.get(1).getFile().getName());
+		List<Violation> violations = reports.get(1).getResult().getViolations();
+		assertEquals(2, violations.size());
+		assertEquals(Rule.TYPE, violations.get(0).getRule());
+		assertEquals("prefix.foo", violations.get(1).getKey());
+		assertEquals(Rule.PREPROCESSING, reports.get(2).getResult().getViolations().get(0).getRule());
+
+		StringWriter report = new StringWriter();
+		ConfigurationLinter.writeReport(reports, report);
+		String[] lines = report.toString().split("\n");
+		assertEquals(5, lines.length);
+		assertEquals("file,valid,time_ms,key,rule,message", lines[0]);
+		assertTrue(lines[1].matches(".*a\\.properties,true,\\d+,,,"), lines[1]);
+		assertTrue(lines[3].matches(".*b\\.properties,false,\\d+,prefix\\.foo,UNKNOWN,.*"), lines[3]);
+
+		Map<String, PropertyMD> broken = new HashMap<>(METADATA)
+		{
+			@Override
+			public Set<Map.Entry<String, PropertyMD>> entrySet()
+			{
+				throw new IllegalStateException("broken metadata");
+			}
+		};
+		reports = new ConfigurationLinter(log, 2)
+				.addFile(new File(dir, "a.properties"), PREFIX, broken)
+				.addFile(new File(dir, "a.properties"), PREFIX, METADATA)
+				.lint();
+		assertEquals(2, reports.size());
+		Violation failure = reports.get(0).getResult().getViolations().get(0);
+		assertEquals(Rule.INTERNAL, failure.getRule());
+		assertTrue(failure.getMessage().contains("broken metadata"), failure.getMessage());
+		assertTrue(reports.get(1).isValid());
+	}
+
 }